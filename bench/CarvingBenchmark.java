@@ -0,0 +1,319 @@
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Micro-benchmarks for the carving hot paths: energy computation, seam search, seam removal and
+ * insertion, and a full {@link ImageResizer#resize} run.
+ * Every case is run for a number of warm-up and measured iterations in the calling thread, and
+ * reports the mean time per operation together with the bytes allocated per operation (and per seam),
+ * taken from the thread allocation counter of the HotSpot {@code ThreadMXBean}.
+ * Every result is folded into a checksum printed at the end, so the JIT cannot drop the measured work, and
+ * a full GC runs before each case so that garbage of one case is not collected during the next.
+ * Cases still share one JVM, so code compiled for one can affect the next (e.g. call sites that become
+ * polymorphic); for numbers to compare across changes, run one case per JVM, e.g. {@code -b resize -s FHD -n 200 -m standard}.
+ * This is a plain {@code main} rather than a JMH module because the project is compiled with {@code javac} alone,
+ * without a build file or third-party jars, and checks and benchmarks sit next to the sources in {@code bench};
+ * the warm-up, blackhole checksum, per-case GC and allocation counter stand in for JMH's forks and GC profiler.
+ *
+ * <pre>
+ * java -cp out CarvingBenchmark [-b energy,findVertical,...] [-s VGA,HD,1024x768] [-n 1,50]
+ *                               [-m standard,pyramid,forced] [-i image.png] [-w 3] [-r 5] [-csv]
+ * </pre>
+ * Without {@code -i} a fixed-seed synthetic image is generated for each size; sample images are
+ * rescaled to each size so every case works on the same content. Compile {@code src-vector} into {@code out} and
+ * add {@code --add-modules jdk.incubator.vector} to measure the vectorized {@link RowKernels}, and
+ * {@code -Dseamcarving.kernels=scalar} for the per-pixel code.
+ */
+public class CarvingBenchmark {
+    private static final Map<String, int[]> NAMED_SIZES = new LinkedHashMap<>();
+
+    static {
+        NAMED_SIZES.put("VGA", new int[]{640, 480});
+        NAMED_SIZES.put("HD", new int[]{1280, 720});
+        NAMED_SIZES.put("FHD", new int[]{1920, 1080});
+        NAMED_SIZES.put("4K", new int[]{3840, 2160});
+        NAMED_SIZES.put("8K", new int[]{7680, 4320});
+    }
+
+    private static final List<String> BENCHMARKS = Arrays.asList(
+            "energy", "findVertical", "findHorizontal", "remove", "insert", "resize");
+
+    // 측정 대상 한 번: 준비는 측정 밖에서 하고 run만 시간/할당량을 잰다. 결과는 체크섬에 더해 버리지 않는다
+    private interface Operation {
+        Object run();
+    }
+
+    private interface Case {
+        Operation prepare();
+    }
+
+    private final int warmupIterations;
+    private final int measureIterations;
+    private final boolean csv;
+    private final com.sun.management.ThreadMXBean threadBean;
+    // 모든 결과에서 뽑은 값의 합. 마지막에 출력해 결과가 쓰이지 않는 것으로 보이지 않게 한다
+    private long sink;
+
+    public CarvingBenchmark(int warmupIterations, int measureIterations, boolean csv) {
+        this.warmupIterations = warmupIterations;
+        this.measureIterations = measureIterations;
+        this.csv = csv;
+        this.threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+
+        List<String> benchmarks = BENCHMARKS;
+        List<String> sizes = Arrays.asList("VGA", "HD");
+        List<Integer> seamCounts = Arrays.asList(1, 50);
+        List<String> methods = Arrays.asList("standard", "pyramid", "forced");
+        List<String> images = new ArrayList<>();
+        int warmup = 3;
+        int iterations = 5;
+        boolean csv = false;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-b":
+                    benchmarks = Arrays.asList(args[++i].split(","));
+                    break;
+                case "-s":
+                    sizes = Arrays.asList(args[++i].split(","));
+                    break;
+                case "-n":
+                    seamCounts = new ArrayList<>();
+                    for (String count : args[++i].split(",")) {
+                        seamCounts.add(Integer.parseInt(count));
+                    }
+                    break;
+                case "-m":
+                    methods = Arrays.asList(args[++i].split(","));
+                    break;
+                case "-i":
+                    images.add(args[++i]);
+                    break;
+                case "-w":
+                    warmup = Integer.parseInt(args[++i]);
+                    break;
+                case "-r":
+                    iterations = Integer.parseInt(args[++i]);
+                    break;
+                case "-csv":
+                    csv = true;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        if (images.isEmpty()) {
+            images.add("synthetic");
+        }
+
+        CarvingBenchmark benchmark = new CarvingBenchmark(warmup, iterations, csv);
+        benchmark.printHeader();
+        for (String imageName : images) {
+            BufferedImage source = imageName.equals("synthetic") ? null : ImageIO.read(new File(imageName));
+            for (String size : sizes) {
+                int[] dimensions = parseSize(size);
+                BufferedImage image = source == null
+                        ? syntheticImage(dimensions[0], dimensions[1])
+                        : scaledImage(source, dimensions[0], dimensions[1]);
+                String label = new File(imageName).getName() + "@" + size;
+                benchmark.runAll(label, image, benchmarks, seamCounts, methods);
+            }
+        }
+        System.err.println("checksum " + benchmark.sink);
+    }
+
+    private void runAll(String label, BufferedImage image, List<String> benchmarks,
+                        List<Integer> seamCounts, List<String> methods) {
+        // 작업 공간을 반복 사이에 재사용해 시임당 정상 상태 할당량만 측정되도록 한다
+        int maxSeams = seamCounts.stream().mapToInt(Integer::intValue).max().orElse(0);
+        WorkspacePool workspacePool = new WorkspacePool(1);
+        SeamCarver seamCarver = new SeamCarver();
+        seamCarver.setWorkspace(new CarvingWorkspace(image.getWidth() + maxSeams, image.getHeight()));
+        EnergyCalculator energyCalculator = new EnergyCalculator();
+        PixelBuffer source = new PixelBuffer(image, image.getWidth(), image.getHeight());
+        double[][] energy = energyCalculator.computeEnergy(image);
+
+        for (String name : benchmarks) {
+            switch (name) {
+                case "energy":
+                    measure(name, label, "-", 0, () -> () -> energyCalculator.computeEnergy(source));
+                    break;
+                case "findVertical":
+                    measure(name, label, "-", 1, () -> () -> seamCarver.findVerticalSeam(energy));
+                    break;
+                case "findHorizontal":
+                    measure(name, label, "-", 1, () -> () -> seamCarver.findHorizontalSeam(energy));
+                    break;
+                case "remove":
+                    for (int seams : seamCounts) {
+                        measure(name, label, "standard", seams, () -> {
+                            PixelBuffer buffer = source.copy();
+                            return () -> {
+                                seamCarver.resizeWidthStandard(buffer, -seams, progress -> {
+                                });
+                                return buffer;
+                            };
+                        });
+                    }
+                    break;
+                case "insert":
+                    for (int seams : seamCounts) {
+                        measure(name, label, "standard", seams, () -> {
+                            PixelBuffer buffer = new PixelBuffer(image, image.getWidth() + seams, image.getHeight());
+                            return () -> {
+                                seamCarver.resizeWidthStandard(buffer, seams, progress -> {
+                                });
+                                return buffer;
+                            };
+                        });
+                    }
+                    break;
+                case "resize":
+                    for (int seams : seamCounts) {
+                        for (String method : methods) {
+                            measure(name, label, method, seams, () -> {
+                                ImageResizer resizer = new ImageResizer(image);
+                                resizer.setWorkspacePool(workspacePool);
+                                return () -> resizer.resize(image.getWidth() - seams, image.getHeight(), method, progress -> {
+                                });
+                            });
+                        }
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown benchmark: " + name);
+            }
+        }
+    }
+
+    private void measure(String name, String label, String method, int seams, Case benchmarkCase) {
+        // 앞 케이스의 쓰레기가 이 케이스의 측정 중에 수거되지 않게 한다
+        System.gc();
+        for (int i = 0; i < warmupIterations; i++) {
+            consume(benchmarkCase.prepare().run());
+        }
+
+        double[] times = new double[measureIterations];
+        long totalBytes = 0;
+        for (int i = 0; i < measureIterations; i++) {
+            Operation operation = benchmarkCase.prepare();
+            long bytesBefore = threadBean.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            Object result = operation.run();
+            times[i] = (System.nanoTime() - start) / 1e6;
+            consume(result);
+            totalBytes += threadBean.getCurrentThreadAllocatedBytes() - bytesBefore;
+        }
+
+        double mean = Arrays.stream(times).average().orElse(0);
+        double variance = Arrays.stream(times).map(t -> (t - mean) * (t - mean)).sum() / Math.max(measureIterations - 1, 1);
+        double bytesPerOp = totalBytes / (double) measureIterations;
+        String bytesPerSeam = seams > 0 ? String.format(Locale.ROOT, "%.0f", bytesPerOp / seams) : "-";
+
+        if (csv) {
+            System.out.printf(Locale.ROOT, "%s,%s,%s,%d,%.3f,%.3f,%.0f,%s%n",
+                    name, label, method, seams, mean, Math.sqrt(variance), bytesPerOp, bytesPerSeam);
+        } else {
+            System.out.printf(Locale.ROOT, "%-15s %-22s %-9s %6d %12.3f +- %-9.3f %14.0f %14s%n",
+                    name, label, method, seams, mean, Math.sqrt(variance), bytesPerOp, bytesPerSeam);
+        }
+    }
+
+    // 결과마다 실제로 계산된 값을 하나씩 읽어 체크섬에 더한다
+    private void consume(Object result) {
+        if (result instanceof double[][] energy) {
+            sink += Double.doubleToLongBits(energy[energy.length / 2][energy[0].length / 2]);
+        } else if (result instanceof int[] seam) {
+            sink += seam[seam.length - 1];
+        } else if (result instanceof PixelBuffer buffer) {
+            sink += buffer.getWidth() + buffer.getRGB(buffer.getWidth() / 2, buffer.getHeight() / 2);
+        } else if (result instanceof BufferedImage image) {
+            sink += image.getWidth() + image.getRGB(image.getWidth() / 2, image.getHeight() / 2);
+        } else {
+            throw new IllegalStateException("Unexpected result: " + result);
+        }
+    }
+
+    private void printHeader() {
+        if (csv) {
+            System.out.println("benchmark,image,method,seams,ms_per_op,ms_stddev,bytes_per_op,bytes_per_seam");
+        } else {
+            System.out.printf(Locale.ROOT, "%-15s %-22s %-9s %6s %25s %14s %14s%n",
+                    "Benchmark", "Image", "Method", "Seams", "ms/op", "B/op", "B/seam");
+        }
+    }
+
+    private static int[] parseSize(String size) {
+        int[] named = NAMED_SIZES.get(size.toUpperCase(Locale.ROOT));
+        if (named != null) {
+            return named;
+        }
+        String[] parts = size.toLowerCase(Locale.ROOT).split("x");
+        return new int[]{Integer.parseInt(parts[0]), Integer.parseInt(parts[1])};
+    }
+
+    // 고정 시드의 합성 이미지: 부드러운 그라디언트 위에 경계가 뚜렷한 도형과 약간의 노이즈
+    static BufferedImage syntheticImage(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(42);
+        Graphics2D g = image.createGraphics();
+        for (int y = 0; y < height; y++) {
+            float t = y / (float) height;
+            g.setColor(new Color(0.3f + 0.4f * t, 0.5f, 0.9f - 0.5f * t));
+            g.drawLine(0, y, width - 1, y);
+        }
+        for (int i = 0; i < 40; i++) {
+            g.setColor(new Color(random.nextInt(0xffffff)));
+            int w = width / 20 + random.nextInt(width / 6);
+            int h = height / 20 + random.nextInt(height / 6);
+            if (random.nextBoolean()) {
+                g.fillRect(random.nextInt(width), random.nextInt(height), w, h);
+            } else {
+                g.fillOval(random.nextInt(width), random.nextInt(height), w, h);
+            }
+        }
+        g.dispose();
+
+        int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+        for (int i = 0; i < pixels.length; i++) {
+            int noise = random.nextInt(9) - 4;
+            int r = clamp(((pixels[i] >> 16) & 0xFF) + noise);
+            int gr = clamp(((pixels[i] >> 8) & 0xFF) + noise);
+            int b = clamp((pixels[i] & 0xFF) + noise);
+            pixels[i] = (r << 16) | (gr << 8) | b;
+        }
+        image.setRGB(0, 0, width, height, pixels, 0, width);
+        return image;
+    }
+
+    private static BufferedImage scaledImage(BufferedImage source, int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.drawImage(source, 0, 0, width, height, null);
+        g.dispose();
+        return image;
+    }
+
+    private static int clamp(int value) {
+        return Math.max(0, Math.min(value, 255));
+    }
+}
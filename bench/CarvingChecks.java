@@ -0,0 +1,944 @@
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+/**
+ * Equivalence checks for the optimized carving paths. Each check runs an optimized path and a plain
+ * reference on fixed-seed images (random noise, and the benchmark's synthetic image, whose flat areas
+ * produce many cost ties) and compares the results seam by seam or pixel by pixel:
+ * <ul>
+ *   <li>{@code energy}: the energy of every energy function, updated after every removal only around the
+ *   removed seam, against the energy of the carved pixels computed from scratch, step costs included;</li>
+ *   <li>{@code cone}: the cost table of {@link SeamFinder}, updated after every removal only in the cone of
+ *   cells below the removed seam whose costs can change, against a fresh full pass;</li>
+ *   <li>{@code dp}: standard carving, with its float costs and byte backtrack offsets, against carving one
+ *   seam at a time with a double-precision DP recomputed from scratch;</li>
+ *   <li>{@code insert}: enlargements that find and insert k distinct seams in one batch against inserting,
+ *   one at a time, the seams found by removing them, in both directions and beyond {@code width - 1} seams,
+ *   which take several batches;</li>
+ *   <li>{@code forced}: the single-pass forced method, which builds the output with one copy per row, against
+ *   inserting and removing one edge row or column at a time, for every standard {@link BufferedImage} type;</li>
+ *   <li>{@code parallel}: standard and pyramid reductions and enlargements with a fork/join pool, which splits the
+ *   energy and DP rows of wide buffers into column chunks, against the serial code, on wide images and on
+ *   tall ones whose height pass runs on a wide transposed buffer;</li>
+ *   <li>{@code kernels}: standard, pyramid and out-of-core resizes with the vectorized {@link RowKernels}
+ *   against the per-pixel code, which must give bit-identical seams (skipped when the vector module is not
+ *   available);</li>
+ *   <li>{@code bulk}: reductions removing several seams per pass against a reference that recomputes the
+ *   energy and the cost table every pass, for every energy function, also with a seam index requested;</li>
+ *   <li>{@code index}: every width a {@link SeamIndex} can produce, narrower and wider than the image, against
+ *   carving to that width, and a {@link ResizeCache} offered a shallower index after a deeper one, which must
+ *   keep the deeper one;</li>
+ *   <li>{@code seammap}: standard width changes read from a {@link SeamMapFile} against a plain resize, and
+ *   the same map with the end of its body overwritten, which must be rejected and fall back to the same
+ *   result;</li>
+ *   <li>{@code pyramid}: the seams of {@link PyramidSeamFinder} for growing band widths, whose cost must never
+ *   rise and never drop below the optimal seam's, and must be the standard seam once the band spans the
+ *   image, and pyramid reductions with such a band against the reference removal;</li>
+ *   <li>{@code outofcore}: {@link OutOfCoreCarver} reductions, through scratch files and in off-heap memory
+ *   with bands of a few rows and with and without the row kernels, against the standard method;</li>
+ *   <li>{@code temporal}: frames carved through a {@link FrameSequence} with a keyframe on every frame, whose
+ *   energy is only updated where the pixels changed, against independent resizes for every energy function,
+ *   and repeated frames, whose seams are all warm-started, against the first frame;</li>
+ *   <li>{@code reuse}: pairs of same-size images resized one after the other, along both axes, as reductions
+ *   and enlargements, that take their buffers from one shared {@link WorkspacePool}, against resizes with a
+ *   fresh workspace each.</li>
+ * </ul>
+ *
+ * <pre>
+ * java -cp out CarvingChecks [-c energy,cone,dp,insert,forced,parallel,kernels,bulk,index,seammap,pyramid,outofcore,temporal,reuse] [-t 24]
+ * </pre>
+ * {@code -t} sets the number of images per check. Compile {@code src-vector} into {@code out} and add
+ * {@code --add-modules jdk.incubator.vector} to include the kernel check. Prints one line per check and
+ * exits with status 1 if any check finds a difference.
+ */
+public class CarvingChecks {
+    private static final List<String> CHECKS = Arrays.asList("energy", "cone", "dp", "insert", "forced", "parallel", "kernels", "bulk", "index", "seammap", "pyramid", "outofcore", "temporal", "reuse");
+
+    private static final Consumer<Integer> NO_PROGRESS = progress -> {
+    };
+
+    private final int trials;
+    private final List<String> failures = new ArrayList<>();
+
+    public CarvingChecks(int trials) {
+        this.trials = trials;
+    }
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+
+        List<String> checks = CHECKS;
+        int trials = 24;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-c":
+                    checks = Arrays.asList(args[++i].split(","));
+                    break;
+                case "-t":
+                    trials = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        CarvingChecks carvingChecks = new CarvingChecks(trials);
+        for (String check : checks) {
+            carvingChecks.run(check);
+        }
+        if (!carvingChecks.failures.isEmpty()) {
+            System.out.println(carvingChecks.failures.size() + " failures");
+            System.exit(1);
+        }
+    }
+
+    private void run(String check) {
+        int before = failures.size();
+        long start = System.nanoTime();
+        switch (check) {
+            case "energy":
+                checkIncrementalEnergy();
+                break;
+            case "cone":
+                checkIncrementalTable();
+                break;
+            case "dp":
+                checkStandardCarving();
+                break;
+            case "insert":
+                checkInsertion();
+                break;
+            case "forced":
+                checkForced();
+                break;
+            case "parallel":
+                checkParallel();
+                break;
+            case "kernels":
+                if (!RowKernels.isVectorized()) {
+                    System.out.println("kernels: skipped, vector kernels not loaded");
+                    return;
+                }
+                checkKernels();
+                break;
+            case "bulk":
+                checkBulkRemoval();
+                break;
+            case "index":
+                checkSeamIndex();
+                break;
+            case "seammap":
+                checkSeamMap();
+                break;
+            case "pyramid":
+                checkPyramid();
+                break;
+            case "outofcore":
+                checkOutOfCore();
+                break;
+            case "temporal":
+                checkTemporal();
+                break;
+            case "reuse":
+                checkWorkspaceReuse();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown check: " + check);
+        }
+        int failed = failures.size() - before;
+        System.out.printf("%s: %s (%.0f ms)%n", check, failed == 0 ? "ok" : failed + " failures",
+                (System.nanoTime() - start) / 1e6);
+    }
+
+    private void fail(String message) {
+        failures.add(message);
+        System.out.println("  " + message);
+    }
+
+    // 시임을 하나 제거할 때마다 시임 주변만 갱신한 에너지를 깎인 픽셀에서 새로 계산한 에너지와 비교한다
+    private void checkIncrementalEnergy() {
+        for (String name : new String[]{EnergyCalculator.NAME, LuminanceEnergy.NAME, ForwardEnergy.NAME}) {
+            for (int t = 0; t < trials; t++) {
+                int width = 3 + (t * 7) % 60;
+                int height = 2 + (t * 11) % 30;
+                BufferedImage image = testImage(width, height, 50 + t);
+                PixelBuffer buffer = new PixelBuffer(image, width, height);
+                EnergyFunction energyFunction = EnergyFunction.forName(name);
+                double[][] energy = energyFunction.computeEnergy(buffer, new double[height][width]);
+                SeamFinder seamFinder = new SeamFinder();
+                for (int i = 0; i < width - 2; i++) {
+                    int[] seam = seamFinder.findSeam(energy, buffer.getWidth(), buffer.getHeight());
+                    buffer.removeVerticalSeam(seam);
+                    energyFunction.updateEnergyAfterVerticalRemoval(buffer, energy, seam);
+                    seamFinder.invalidate();
+
+                    EnergyFunction fresh = EnergyFunction.forName(name);
+                    double[][] expected = fresh.computeEnergy(buffer, new double[height][width]);
+                    if (!sameCells(energy, expected, buffer.getWidth())
+                            || !sameCells(energyFunction.getLeftStepCosts(), fresh.getLeftStepCosts(), buffer.getWidth())
+                            || !sameCells(energyFunction.getRightStepCosts(), fresh.getRightStepCosts(), buffer.getWidth())) {
+                        fail("energy: " + name + " " + width + "x" + height + " differs after seam " + i + ", image " + t);
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean sameCells(double[][] actual, double[][] expected, int width) {
+        for (int y = 0; y < expected.length; y++) {
+            if (!Arrays.equals(actual[y], 0, width, expected[y], 0, width)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean sameCells(byte[][] actual, byte[][] expected, int width) {
+        if (actual == null || expected == null) {
+            return actual == expected;
+        }
+        for (int y = 0; y < expected.length; y++) {
+            if (!Arrays.equals(actual[y], 0, width, expected[y], 0, width)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 시임을 하나 제거할 때마다 증분 갱신한 비용 테이블과 새로 계산한 테이블이 같은 시임을 고르는지 본다
+    private void checkIncrementalTable() {
+        EnergyCalculator energyCalculator = new EnergyCalculator();
+        for (int t = 0; t < trials; t++) {
+            int width = 20 + t * 3;
+            int height = 15 + t * 2;
+            BufferedImage image = testImage(width, height, t);
+            PixelBuffer buffer = new PixelBuffer(image, width, height);
+            double[][] energy = energyCalculator.computeEnergy(buffer);
+            SeamFinder seamFinder = new SeamFinder();
+            int seams = Math.min(width - 2, 30);
+            for (int i = 0; i < seams; i++) {
+                int[] seam = seamFinder.findSeam(energy, buffer.getWidth(), buffer.getHeight());
+                int[] expected = new SeamFinder().findSeam(energy, buffer.getWidth(), buffer.getHeight());
+                if (!Arrays.equals(seam, expected)) {
+                    fail("cone: incremental table differs, image " + t + ", seam " + i);
+                    break;
+                }
+                buffer.removeVerticalSeam(seam);
+                energyCalculator.updateEnergyAfterVerticalRemoval(buffer, energy, seam);
+                seamFinder.seamRemoved(seam, buffer.getWidth(), buffer.getHeight());
+            }
+        }
+    }
+
+    // 표준 방식 전체를 시임마다 에너지와 double 누적 비용을 처음부터 다시 계산하는 방식과 비교한다
+    private void checkStandardCarving() {
+        for (int t = 0; t < trials; t++) {
+            int width = 8 + (t * 7) % 40;
+            int height = 6 + (t * 11) % 35;
+            BufferedImage image = testImage(width, height, 100 + t);
+            int deltaWidth = -Math.min(width - 2, 1 + t % 9);
+            int deltaHeight = -Math.min(height - 2, 1 + t % 7);
+
+            SeamCarver seamCarver = new SeamCarver();
+            BufferedImage narrower = seamCarver.resizeWidthStandard(image, deltaWidth, NO_PROGRESS);
+            if (!samePixels(narrower, referenceRemoval(image, -deltaWidth))) {
+                fail("dp: width " + width + "x" + height + " by " + deltaWidth + " differs, image " + t);
+            }
+            BufferedImage lower = seamCarver.resizeHeightStandard(image, deltaHeight, NO_PROGRESS);
+            if (!samePixels(lower, transpose(referenceRemoval(transpose(image), -deltaHeight)))) {
+                fail("dp: height " + width + "x" + height + " by " + deltaHeight + " differs, image " + t);
+            }
+        }
+    }
+
+    // 한 번에 여러 시임을 찾아 넣는 확대를 시임을 하나씩 제거하며 찾은 위치에 넣는 방식과 비교한다.
+    // 너비 - 1개보다 많이 넣으면 여러 번에 나눠 넣고, 높이는 전치된 버퍼에서 넣는다
+    private void checkInsertion() {
+        for (int t = 0; t < trials; t++) {
+            int width = 5 + t * 2;
+            int height = 4 + t;
+            BufferedImage image = testImage(width, height, 200 + t);
+            int seams = 1 + (t * 3) % (width + 5);
+            BufferedImage wider = new SeamCarver().resizeWidthStandard(image, seams, NO_PROGRESS);
+            if (!samePixels(wider, referenceInsertion(image, seams))) {
+                fail("insert: width " + width + "x" + height + " by " + seams + " differs, image " + t);
+            }
+            int rows = 1 + (t * 5) % (height + 3);
+            BufferedImage higher = new SeamCarver().resizeHeightStandard(image, rows, NO_PROGRESS);
+            if (!samePixels(higher, transpose(referenceInsertion(transpose(image), rows)))) {
+                fail("insert: height " + width + "x" + height + " by " + rows + " differs, image " + t);
+            }
+        }
+    }
+
+    // 한 번의 복사로 만드는 강제 방식을 가장자리에서 번갈아 한 줄씩 넣고 빼는 원래 방식과 비교한다
+    private void checkForced() {
+        int[] types = {BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_INT_ARGB_PRE,
+                BufferedImage.TYPE_INT_BGR, BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_4BYTE_ABGR,
+                BufferedImage.TYPE_4BYTE_ABGR_PRE, BufferedImage.TYPE_USHORT_565_RGB, BufferedImage.TYPE_USHORT_555_RGB,
+                BufferedImage.TYPE_BYTE_GRAY, BufferedImage.TYPE_USHORT_GRAY, BufferedImage.TYPE_BYTE_BINARY,
+                BufferedImage.TYPE_BYTE_INDEXED};
+        Random random = new Random(7);
+        SeamCarver seamCarver = new SeamCarver();
+        for (int type : types) {
+            for (int t = 0; t < trials; t++) {
+                int width = 1 + random.nextInt(t < trials / 4 ? 3 : 20);
+                int height = 1 + random.nextInt(t < trials / 4 ? 3 : 20);
+                boolean vertical = random.nextBoolean();
+                int length = vertical ? width : height;
+                int delta = random.nextBoolean() ? 1 + random.nextInt(12) : -random.nextInt(length);
+                BufferedImage image = new BufferedImage(width, height, type);
+                for (int y = 0; y < height; y++) {
+                    for (int x = 0; x < width; x++) {
+                        image.setRGB(x, y, random.nextInt());
+                    }
+                }
+
+                int[] progress = {0};
+                BufferedImage actual = vertical
+                        ? seamCarver.resizeWidthForced(image, delta, seams -> progress[0] += seams)
+                        : seamCarver.resizeHeightForced(image, delta, seams -> progress[0] += seams);
+                BufferedImage expected = referenceForced(image, delta, vertical);
+                if (progress[0] != Math.abs(delta) || !sameRaster(expected, actual)) {
+                    fail("forced: type " + type + ", " + width + "x" + height + (vertical ? " width" : " height")
+                            + " by " + delta + " differs");
+                }
+            }
+        }
+    }
+
+    // 병렬 경로는 너비가 임계값 이상일 때만 쓰이므로 넓고 낮은 이미지로 비교한다.
+    // 높이를 줄이는 패스는 전치된 버퍼에서 돌므로 홀수 번째는 좁고 높은 이미지로 그쪽을 병렬로 탄다
+    private void checkParallel() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int t = 0; t < Math.max(trials / 4, 2); t++) {
+                boolean tall = t % 2 == 1;
+                int width = tall ? 24 + t * 4 : 4200 + t * 160;
+                int height = tall ? 4200 + t * 160 : 24 + t * 4;
+                BufferedImage image = testImage(width, height, 300 + t);
+                int[][] targets = {{width - 6, height - 6}, {tall ? width + 6 : width + 20, height}};
+                for (int[] target : targets) {
+                    for (String method : new String[]{"standard", "pyramid"}) {
+                        BufferedImage serial = new ImageResizer(image).resize(target[0], target[1], method, NO_PROGRESS);
+                        ImageResizer parallelResizer = new ImageResizer(image);
+                        parallelResizer.setForkJoinPool(pool);
+                        BufferedImage parallel = parallelResizer.resize(target[0], target[1], method, NO_PROGRESS);
+                        if (!samePixels(serial, parallel)) {
+                            fail("parallel: " + method + " " + width + "x" + height + " -> " + target[0] + "x" + target[1]
+                                    + " differs, image " + t);
+                        }
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // 벡터 커널과 픽셀 단위 코드로 같은 크기 조정을 해서 비교한다. 경계 처리를 위해 너비를 다양하게 고른다
+    private void checkKernels() {
+        try {
+            for (int t = 0; t < trials; t++) {
+                int width = 3 + t * 5;
+                int height = 4 + (t * 7) % 30;
+                BufferedImage image = testImage(width, height, 400 + t);
+                int targetWidth = Math.max(width - 1 - t % 9, 1);
+                int targetHeight = height + (t % 3 == 0 ? 2 : -Math.min(height - 2, 1 + t % 5));
+                for (String method : new String[]{"standard", "pyramid"}) {
+                    RowKernels.setEnabled(false);
+                    BufferedImage scalar = new ImageResizer(image).resize(targetWidth, targetHeight, method, NO_PROGRESS);
+                    RowKernels.setEnabled(true);
+                    BufferedImage vector = new ImageResizer(image).resize(targetWidth, targetHeight, method, NO_PROGRESS);
+                    if (!samePixels(scalar, vector)) {
+                        fail("kernels: " + method + " " + width + "x" + height + " -> " + targetWidth + "x" + targetHeight
+                                + " differs, image " + t);
+                    }
+                }
+
+                // 메모리 밖 방식의 순방향 패스도 같은 커널을 쓴다 (축소만 지원한다)
+                int reducedHeight = Math.min(targetHeight, height);
+                RowKernels.setEnabled(false);
+                BufferedImage scalar = outOfCoreResize(image, targetWidth, reducedHeight);
+                RowKernels.setEnabled(true);
+                if (!samePixels(scalar, outOfCoreResize(image, targetWidth, reducedHeight))) {
+                    fail("kernels: out-of-core " + width + "x" + height + " -> " + targetWidth + "x" + reducedHeight
+                            + " differs, image " + t);
+                }
+            }
+        } finally {
+            RowKernels.setEnabled(true);
+        }
+    }
+
+    private static BufferedImage outOfCoreResize(BufferedImage image, int targetWidth, int targetHeight) {
+        try (OutOfCoreCarver carver = new OutOfCoreCarver()) {
+            carver.load(image);
+            carver.resize(targetWidth, targetHeight, progress -> {
+            });
+            return carver.toImage();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    // 한 패스에 여러 시임을 제거하는 축소를 패스마다 에너지와 비용 테이블을 새로 계산하는 참조 구현과 에너지 함수별로 비교한다
+    private void checkBulkRemoval() {
+        for (String name : new String[]{EnergyCalculator.NAME, LuminanceEnergy.NAME, ForwardEnergy.NAME}) {
+            for (int t = 0; t < trials; t++) {
+                int width = 2 + (t * 7) % 90;
+                int height = 2 + (t * 11) % 40;
+                BufferedImage image = testImage(width, height, 500 + t);
+                int deltaWidth = -Math.min(1 + t % 13, width - 1);
+                int seamsPerPass = 2 + t % 4;
+
+                SeamCarver bulkCarver = new SeamCarver();
+                bulkCarver.setEnergyFunction(EnergyFunction.forName(name));
+                bulkCarver.setSeamsPerPass(seamsPerPass);
+                BufferedImage bulk = bulkCarver.resizeWidthStandard(image, deltaWidth, NO_PROGRESS);
+                if (!samePixels(bulk, referenceBulkRemoval(name, image, -deltaWidth, seamsPerPass))) {
+                    fail("bulk: " + name + " " + width + "x" + height + " by " + seamsPerPass + " differs, image " + t);
+                }
+
+                // 시임 인덱스를 기록하도록 해도 여러 시임을 제거하는 축소는 인덱스 없이 같은 결과를 낸다
+                ImageResizer resizer = new ImageResizer(image);
+                resizer.setEnergyFunction(EnergyFunction.forName(name));
+                resizer.setSeamsPerPass(seamsPerPass);
+                resizer.setKeepSeamIndex(true);
+                if (!samePixels(bulk, resizer.resize(width + deltaWidth, height, "standard", NO_PROGRESS))
+                        || resizer.getSeamIndex() != null) {
+                    fail("bulk: " + name + " " + width + "x" + height + " by " + seamsPerPass + " used a seam index, image " + t);
+                }
+            }
+        }
+    }
+
+    // 시임 인덱스로 만든 모든 너비를 그 너비까지 깎거나 늘린 결과와 비교한다. 캐시는 더 얕은 인덱스가
+    // 들어와도 깊은 인덱스를 그대로 둬야 한다
+    private void checkSeamIndex() {
+        for (int t = 0; t < trials; t++) {
+            int width = 4 + (t * 7) % 50;
+            int height = 3 + (t * 11) % 30;
+            BufferedImage image = testImage(width, height, 600 + t);
+            int minWidth = 1 + t % Math.max(width / 2, 1);
+
+            SeamCarver seamCarver = new SeamCarver();
+            SeamIndex seamIndex = seamCarver.buildSeamIndex(image, minWidth, NO_PROGRESS);
+            for (int targetWidth = seamIndex.getMinWidth(); targetWidth <= seamIndex.getMaxWidth(); targetWidth++) {
+                BufferedImage expected = seamCarver.resizeWidthStandard(image, targetWidth - width, NO_PROGRESS);
+                if (!samePixels(seamIndex.retarget(targetWidth), expected)) {
+                    fail("index: " + width + "x" + height + " -> " + targetWidth + " differs, image " + t);
+                    break;
+                }
+            }
+
+            ResizeCache resizeCache = new ResizeCache(Long.MAX_VALUE);
+            SeamIndex shallower = seamCarver.buildSeamIndex(image, (width + minWidth + 1) / 2, NO_PROGRESS);
+            resizeCache.putSeamIndex("image", EnergyCalculator.NAME, 1, seamIndex);
+            resizeCache.putSeamIndex("image", EnergyCalculator.NAME, 1, shallower);
+            if (resizeCache.getSeamIndex("image", EnergyCalculator.NAME, 1) != seamIndex) {
+                fail("index: cache replaced the index to width " + minWidth + " with one to width "
+                        + shallower.getMinWidth() + ", image " + t);
+            }
+        }
+    }
+
+    // 시임 맵을 써서 읽은 결과를 시임 맵 없이 변환한 결과와 비교한다. 본문 끝을 0xff나 0으로 덮어 쓴 맵은
+    // 읽기를 거부하고(getSeamMapError) 시임을 찾아 같은 결과를 내야 한다
+    private void checkSeamMap() {
+        File file;
+        try {
+            file = File.createTempFile("checks", SeamMapFile.EXTENSION);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        try {
+            for (int t = 0; t < trials; t++) {
+                int width = 8 + (t * 7) % 90;
+                int height = 6 + (t * 11) % 40;
+                BufferedImage image = testImage(width, height, 700 + t);
+                int minWidth = Math.max(width / 3, 1);
+                int[] targetWidths = {Math.max(width - 1 - t % 11, minWidth), minWidth, width + 1 + t % 5};
+
+                ImageResizer writer = new ImageResizer(image);
+                writer.buildSeamIndex(minWidth, NO_PROGRESS);
+                writer.writeSeamMap(file);
+                byte[] intact = Files.readAllBytes(file.toPath());
+
+                for (int corruption : new int[]{-1, 0xff, 0x00}) {
+                    Files.write(file.toPath(), intact);
+                    if (corruption >= 0) {
+                        try (RandomAccessFile output = new RandomAccessFile(file, "rw")) {
+                            int bytes = Math.min(40, width * height * Short.BYTES);
+                            output.seek(intact.length - bytes);
+                            byte[] fill = new byte[bytes];
+                            Arrays.fill(fill, (byte) corruption);
+                            output.write(fill);
+                        }
+                    }
+                    String label = (corruption < 0) ? "intact" : String.format("0x%02x", corruption);
+                    for (int targetWidth : targetWidths) {
+                        ImageResizer resizer = new ImageResizer(image);
+                        resizer.setSeamMapFile(file);
+                        BufferedImage result = resizer.resize(targetWidth, height, "standard", NO_PROGRESS);
+                        BufferedImage expected = new ImageResizer(image).resize(targetWidth, height, "standard", NO_PROGRESS);
+                        boolean rejected = resizer.getSeamMapError() != null;
+                        if (!samePixels(expected, result) || rejected != (corruption >= 0)
+                                || (resizer.getSeamIndex() != null) == rejected) {
+                            fail("seammap: " + label + " " + width + "x" + height + " -> " + targetWidth
+                                    + (rejected ? " rejected" : " accepted") + ", image " + t);
+                        }
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            file.delete();
+        }
+    }
+
+    // 피라미드 탐색은 띠를 넓힐수록 같은 거친 경로 주변을 더 넓게 보므로 시임 비용이 늘지 않고, 띠가 이미지
+    // 전체를 덮으면 표준 탐색과 같은 시임을 고른다. 그런 띠로 깎은 결과도 참조 구현과 같아야 한다
+    private void checkPyramid() {
+        EnergyCalculator energyCalculator = new EnergyCalculator();
+        for (int t = 0; t < trials; t++) {
+            int width = 16 + (t * 13) % 80;
+            int height = 16 + (t * 7) % 40;
+            BufferedImage image = testImage(width, height, 800 + t);
+            double[][] energy = energyCalculator.computeEnergy(new PixelBuffer(image, width, height));
+            int[] optimal = referenceSeam(energy);
+            double optimalCost = seamCost(energy, optimal);
+
+            double previousCost = Double.POSITIVE_INFINITY;
+            for (int band = 1; ; band = Math.min(2 * band, width)) {
+                int[] seam = new PyramidSeamFinder(4, band).findSeam(energy, width, height);
+                double cost = seamCost(energy, seam);
+                double tolerance = 1e-9 * optimalCost;
+                if (!isSeam(seam, width) || cost < optimalCost - tolerance || cost > previousCost + tolerance) {
+                    fail("pyramid: band " + band + " seam cost " + cost + " after " + previousCost + ", optimal "
+                            + optimalCost + ", image " + t);
+                    break;
+                }
+                previousCost = cost;
+                if (band == width) {
+                    if (!Arrays.equals(seam, optimal)) {
+                        fail("pyramid: full band differs from the standard seam, image " + t);
+                    }
+                    break;
+                }
+            }
+
+            int seams = 1 + t % Math.min(9, width - 1);
+            ImageResizer resizer = new ImageResizer(image);
+            resizer.setPyramidBandWidth(width);
+            if (!samePixels(resizer.resize(width - seams, height, "pyramid", NO_PROGRESS), referenceRemoval(image, seams))) {
+                fail("pyramid: full band " + width + "x" + height + " by " + seams + " differs, image " + t);
+            }
+        }
+    }
+
+    // 띠를 몇 행으로 잘게 나눠 띠 경계를 넘는 시임과 전치된 파일도 거치게 하고, 파일과 힙 밖 메모리 양쪽을 본다
+    private void checkOutOfCore() {
+        File directory;
+        try {
+            directory = Files.createTempDirectory("checks").toFile();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        try {
+            for (int t = 0; t < trials; t++) {
+                int width = 3 + (t * 13) % 90;
+                int height = 3 + (t * 7) % 50;
+                BufferedImage image = testImage(width, height, 900 + t);
+                int targetWidth = Math.max(width - 1 - t % 17, 1);
+                int targetHeight = Math.max(height - t % 6, 1);
+                BufferedImage expected = new ImageResizer(image).resize(targetWidth, targetHeight, "standard", NO_PROGRESS);
+                for (boolean mapped : new boolean[]{true, false}) {
+                    // 행 커널을 끄면 픽셀 단위 경로를 탄다
+                    RowKernels.setEnabled(mapped || t % 2 == 0);
+                    try (OutOfCoreCarver carver = mapped ? new OutOfCoreCarver(directory) : new OutOfCoreCarver()) {
+                        carver.setBandBytes((long) Math.max(width, height) * Integer.BYTES * (1 + t % 4));
+                        carver.load(image);
+                        carver.resize(targetWidth, targetHeight, progress -> {
+                        });
+                        if (!samePixels(expected, carver.toImage())) {
+                            fail("outofcore: " + (mapped ? "mapped " : "off-heap ")
+                                    + (RowKernels.isEnabled() ? "" : "per-pixel ") + width + "x" + height + " -> "
+                                    + targetWidth + "x" + targetHeight + " differs, image " + t);
+                        }
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            RowKernels.setEnabled(true);
+            directory.delete();
+        }
+    }
+
+    // 매 프레임이 키프레임이면 시임은 처음부터 찾고 에너지만 바뀐 화소 주변에서 갱신하므로 독립 변환과 같아야 한다.
+    // 같은 프레임이 반복되면 모든 시임이 앞 프레임의 띠 안에서 찾아지고 결과도 그대로여야 한다
+    private void checkTemporal() {
+        for (String name : new String[]{EnergyCalculator.NAME, LuminanceEnergy.NAME, ForwardEnergy.NAME}) {
+            for (int t = 0; t < Math.max(trials / 3, 1); t++) {
+                int width = 12 + (t * 13) % 70;
+                int height = 10 + (t * 7) % 40;
+                BufferedImage background = testImage(width, height, 1000 + t);
+                int targetWidth = width - 1 - t % Math.min(11, width / 2);
+                int targetHeight = height - t % 4;
+
+                FrameSequence sequence = new FrameSequence(4, 1);
+                for (int frame = 0; frame < 4; frame++) {
+                    BufferedImage image = movingPatch(background, frame, 1000 + t);
+                    BufferedImage expected = resize(image, name, null, targetWidth, targetHeight);
+                    if (!samePixels(expected, resize(image, name, sequence, targetWidth, targetHeight))) {
+                        fail("temporal: " + name + " " + width + "x" + height + " -> " + targetWidth + "x" + targetHeight
+                                + " differs, image " + t + ", frame " + frame);
+                    }
+                }
+
+                FrameSequence repeated = new FrameSequence(4, 100);
+                BufferedImage expected = resize(background, name, null, targetWidth, height);
+                for (int frame = 0; frame < 3; frame++) {
+                    if (!samePixels(expected, resize(background, name, repeated, targetWidth, height))) {
+                        fail("temporal: " + name + " repeated " + width + "x" + height + " -> " + targetWidth
+                                + " differs, image " + t + ", frame " + frame);
+                    }
+                }
+                if (repeated.getGuidedRatio() < 0.5) {
+                    fail("temporal: " + name + " repeated frames warm-started " + repeated.getGuidedRatio()
+                            + " of the seams, image " + t);
+                }
+            }
+        }
+    }
+
+    // 작업 공간 하나를 돌려 쓰는 변환이 이전 작업이 남긴 에너지, 비용 테이블, 시임 배열에 영향을 받지
+    // 않는지 본다. 배열 크기가 같아야 남은 상태가 그대로 쓰이므로 같은 크기의 이미지를 두 장씩 변환한다
+    private void checkWorkspaceReuse() {
+        String[] energyNames = {EnergyCalculator.NAME, LuminanceEnergy.NAME, ForwardEnergy.NAME};
+        WorkspacePool workspacePool = new WorkspacePool(1);
+        for (int t = 0; t < trials; t++) {
+            int size = t / 2;
+            int width = 20 + (size * 7) % 25;
+            int height = 15 + (size * 11) % 20;
+            BufferedImage image = testImage(width, height, 800 + t);
+            int targetWidth = width + ((size % 2 == 0) ? -(1 + size % 9) : 1 + size % 6);
+            int targetHeight = (size % 3 == 0) ? height : height + ((size % 3 == 1) ? 1 + size % 5 : -(1 + size % 7));
+            String method = (size % 4 == 3) ? "pyramid" : "standard";
+            String energyName = energyNames[t % energyNames.length];
+
+            ImageResizer pooled = new ImageResizer(image);
+            pooled.setEnergyFunction(EnergyFunction.forName(energyName));
+            pooled.setWorkspacePool(workspacePool);
+            ImageResizer fresh = new ImageResizer(image);
+            fresh.setEnergyFunction(EnergyFunction.forName(energyName));
+            if (!samePixels(pooled.resize(targetWidth, targetHeight, method, NO_PROGRESS),
+                    fresh.resize(targetWidth, targetHeight, method, NO_PROGRESS))) {
+                fail("reuse: " + method + " " + energyName + " " + width + "x" + height + " -> " + targetWidth + "x"
+                        + targetHeight + " differs, image " + t);
+            }
+        }
+    }
+
+    private static BufferedImage resize(BufferedImage image, String energyName, FrameSequence sequence,
+                                        int targetWidth, int targetHeight) {
+        ImageResizer resizer = new ImageResizer(image);
+        resizer.setEnergyFunction(EnergyFunction.forName(energyName));
+        resizer.setFrameSequence(sequence);
+        return resizer.resize(targetWidth, targetHeight, "standard", NO_PROGRESS);
+    }
+
+    // 배경 위에서 프레임마다 두 칸씩 오른쪽 아래로 움직이는 잡음 사각형
+    static BufferedImage movingPatch(BufferedImage background, int frame, long seed) {
+        int width = background.getWidth();
+        int height = background.getHeight();
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, width, height, background.getRGB(0, 0, width, height, null, 0, width), 0, width);
+        Random random = new Random(seed);
+        int size = Math.max(Math.min(width, height) / 4, 2);
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                image.setRGB((x + 2 * frame) % width, (y + 2 * frame) % height, random.nextInt(0x1000000));
+            }
+        }
+        return image;
+    }
+
+    static double seamCost(double[][] energy, int[] seam) {
+        double cost = 0;
+        for (int y = 0; y < seam.length; y++) {
+            cost += energy[y][seam[y]];
+        }
+        return cost;
+    }
+
+    // 모든 행에 이미지 안의 열이 하나씩 있고 행마다 한 칸까지만 옆으로 움직이는지 본다
+    static boolean isSeam(int[] seam, int width) {
+        for (int y = 0; y < seam.length; y++) {
+            if (seam[y] < 0 || seam[y] >= width || (y > 0 && Math.abs(seam[y] - seam[y - 1]) > 1)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 참조 구현: 시임마다 에너지를 새로 계산하고 double 누적 비용으로 시임을 찾아 제거한다
+    static BufferedImage referenceRemoval(BufferedImage image, int seams) {
+        EnergyCalculator energyCalculator = new EnergyCalculator();
+        SeamCarver seamCarver = new SeamCarver();
+        BufferedImage result = image;
+        for (int i = 0; i < seams; i++) {
+            int[] seam = referenceSeam(energyCalculator.computeEnergy(result));
+            result = removeSeam(result, seam);
+        }
+        return result;
+    }
+
+    // 참조 구현: 패스마다 에너지를 새로 계산해 겹치지 않는 시임을 여럿 찾고 오른쪽 시임부터 제거한다
+    static BufferedImage referenceBulkRemoval(String energyName, BufferedImage image, int seams, int seamsPerPass) {
+        PixelBuffer buffer = new PixelBuffer(image, image.getWidth(), image.getHeight());
+        int[][] found = new int[seamsPerPass][image.getHeight()];
+        while (seams > 0) {
+            EnergyFunction energyFunction = EnergyFunction.forName(energyName);
+            double[][] energy = energyFunction.computeEnergy(buffer,
+                    new double[buffer.getCapacityHeight()][buffer.getStride()]);
+            SeamFinder seamFinder = new SeamFinder();
+            seamFinder.setStepCosts(energyFunction.getLeftStepCosts(), energyFunction.getRightStepCosts());
+            int count = seamFinder.findSeams(energy, buffer.getWidth(), buffer.getHeight(), found,
+                    Math.min(seamsPerPass, seams));
+            for (int j = count - 1; j >= 0; j--) {
+                buffer.removeVerticalSeam(found[j]);
+            }
+            seams -= count;
+        }
+        return buffer.toImage();
+    }
+
+    // 참조 구현: 시임을 하나씩 제거하며 원본 열 위치를 기록한 뒤, 기록한 열마다 오른쪽에 평균 색 픽셀을 넣는다.
+    // 한 번에 넣는 수는 원본 너비보다 하나 적게 제한하고, 더 넣어야 하면 결과에서 다시 반복한다
+    static BufferedImage referenceInsertion(BufferedImage image, int seams) {
+        EnergyCalculator energyCalculator = new EnergyCalculator();
+        SeamCarver seamCarver = new SeamCarver();
+        BufferedImage current = image;
+        while (seams > 0) {
+            int width = current.getWidth();
+            int height = current.getHeight();
+            int count = Math.min(seams, Math.max(width - 1, 1));
+
+            List<List<Integer>> columns = new ArrayList<>();
+            for (int y = 0; y < height; y++) {
+                List<Integer> row = new ArrayList<>();
+                for (int x = 0; x < width; x++) {
+                    row.add(x);
+                }
+                columns.add(row);
+            }
+            boolean[][] marked = new boolean[height][width];
+            BufferedImage work = current;
+            for (int i = 0; i < count; i++) {
+                int[] seam = referenceSeam(energyCalculator.computeEnergy(work));
+                for (int y = 0; y < height; y++) {
+                    marked[y][columns.get(y).remove(seam[y])] = true;
+                }
+                work = removeSeam(work, seam);
+            }
+
+            BufferedImage output = new BufferedImage(width + count, height, BufferedImage.TYPE_INT_ARGB);
+            for (int y = 0; y < height; y++) {
+                int newX = 0;
+                for (int x = 0; x < width; x++) {
+                    int rgb = current.getRGB(x, y);
+                    output.setRGB(newX++, y, rgb);
+                    if (marked[y][x]) {
+                        int next = (x < width - 1) ? current.getRGB(x + 1, y) : rgb;
+                        output.setRGB(newX++, y, SeamCarver.averageColor(rgb, next));
+                    }
+                }
+            }
+            current = output;
+            seams -= count;
+        }
+        return current;
+    }
+
+    // 참조 구현: 늘릴 때는 왼쪽 가장자리부터, 줄일 때도 왼쪽부터 번갈아 한 줄씩 넣거나 뺀다
+    static BufferedImage referenceForced(BufferedImage image, int delta, boolean vertical) {
+        BufferedImage result = image;
+        for (int i = 0; i < Math.abs(delta); i++) {
+            int last = (vertical ? result.getWidth() : result.getHeight()) - 1;
+            int position = (i % 2 == 0) ? 0 : last;
+            result = delta > 0 ? insertLine(result, position, vertical) : removeLine(result, position, vertical);
+        }
+        return result;
+    }
+
+    // 행마다 seam[y] 열의 픽셀을 빼고 나머지를 왼쪽으로 당긴다
+    static BufferedImage removeSeam(BufferedImage image, int[] seam) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        BufferedImage output = new BufferedImage(width - 1, height, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < height; y++) {
+            int newX = 0;
+            for (int x = 0; x < width; x++) {
+                if (x != seam[y]) {
+                    output.setRGB(newX++, y, image.getRGB(x, y));
+                }
+            }
+        }
+        return output;
+    }
+
+    // position 앞에 양옆 픽셀의 평균 색으로 줄 하나를 넣는다. 출력은 입력과 같은 이미지 형식을 쓴다
+    static BufferedImage insertLine(BufferedImage image, int position, boolean vertical) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int lines = vertical ? width : height;
+        BufferedImage output = vertical
+                ? new BufferedImage(width + 1, height, image.getType())
+                : new BufferedImage(width, height + 1, image.getType());
+        for (int across = 0; across < (vertical ? height : width); across++) {
+            int next = 0;
+            for (int line = 0; line <= lines; line++) {
+                if (line == position) {
+                    int rgb1 = lineRGB(image, Math.min(line, lines - 1), across, vertical);
+                    int rgb2 = lineRGB(image, Math.max(line - 1, 0), across, vertical);
+                    setLineRGB(output, next++, across, vertical, SeamCarver.averageColor(rgb1, rgb2));
+                }
+                if (line < lines) {
+                    setLineRGB(output, next++, across, vertical, lineRGB(image, line, across, vertical));
+                }
+            }
+        }
+        return output;
+    }
+
+    // position 줄을 빼고 나머지를 당긴다. 출력은 입력과 같은 이미지 형식을 쓴다
+    static BufferedImage removeLine(BufferedImage image, int position, boolean vertical) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int lines = vertical ? width : height;
+        BufferedImage output = vertical
+                ? new BufferedImage(width - 1, height, image.getType())
+                : new BufferedImage(width, height - 1, image.getType());
+        for (int across = 0; across < (vertical ? height : width); across++) {
+            int next = 0;
+            for (int line = 0; line < lines; line++) {
+                if (line != position) {
+                    setLineRGB(output, next++, across, vertical, lineRGB(image, line, across, vertical));
+                }
+            }
+        }
+        return output;
+    }
+
+    private static int lineRGB(BufferedImage image, int line, int across, boolean vertical) {
+        return vertical ? image.getRGB(line, across) : image.getRGB(across, line);
+    }
+
+    private static void setLineRGB(BufferedImage image, int line, int across, boolean vertical, int rgb) {
+        if (vertical) {
+            image.setRGB(line, across, rgb);
+        } else {
+            image.setRGB(across, line, rgb);
+        }
+    }
+
+    // 교과서식 동적 계획법. 같은 비용이면 위, 왼쪽 위, 오른쪽 위 순서로, 마지막 행에서는 왼쪽 칸을 고른다
+    static int[] referenceSeam(double[][] energy) {
+        int height = energy.length;
+        int width = energy[0].length;
+        double[][] cost = new double[height][width];
+        int[][] from = new int[height][width];
+        cost[0] = energy[0].clone();
+        for (int y = 1; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                double lowest = cost[y - 1][x];
+                int offset = 0;
+                if (x > 0 && cost[y - 1][x - 1] < lowest) {
+                    lowest = cost[y - 1][x - 1];
+                    offset = -1;
+                }
+                if (x < width - 1 && cost[y - 1][x + 1] < lowest) {
+                    lowest = cost[y - 1][x + 1];
+                    offset = 1;
+                }
+                cost[y][x] = energy[y][x] + lowest;
+                from[y][x] = offset;
+            }
+        }
+
+        int[] seam = new int[height];
+        for (int x = 1; x < width; x++) {
+            if (cost[height - 1][x] < cost[height - 1][seam[height - 1]]) {
+                seam[height - 1] = x;
+            }
+        }
+        for (int y = height - 1; y > 0; y--) {
+            seam[y - 1] = seam[y] + from[y][seam[y]];
+        }
+        return seam;
+    }
+
+    // 짝수 번째는 잡음 이미지, 홀수 번째는 평평한 영역이 많아 비용이 같은 칸이 자주 생기는 합성 이미지
+    static BufferedImage testImage(int width, int height, long seed) {
+        if (seed % 2 == 1 && width >= 6 && height >= 6) {
+            return CarvingBenchmark.syntheticImage(width, height);
+        }
+        Random random = new Random(seed);
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, random.nextInt(0x1000000));
+            }
+        }
+        return image;
+    }
+
+    static BufferedImage transpose(BufferedImage image) {
+        BufferedImage transposed = new BufferedImage(image.getHeight(), image.getWidth(), BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                transposed.setRGB(y, x, image.getRGB(x, y));
+            }
+        }
+        return transposed;
+    }
+
+    static boolean samePixels(BufferedImage a, BufferedImage b) {
+        if (a.getWidth() != b.getWidth() || a.getHeight() != b.getHeight()) {
+            return false;
+        }
+        for (int y = 0; y < a.getHeight(); y++) {
+            for (int x = 0; x < a.getWidth(); x++) {
+                if (a.getRGB(x, y) != b.getRGB(x, y)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    // 강제 방식은 원본 형식을 유지하므로 형식과 래스터 값까지 비교한다
+    static boolean sameRaster(BufferedImage a, BufferedImage b) {
+        if (a.getType() != b.getType() || a.getWidth() != b.getWidth() || a.getHeight() != b.getHeight()) {
+            return false;
+        }
+        int[] pixelsA = a.getRaster().getPixels(0, 0, a.getWidth(), a.getHeight(), (int[]) null);
+        int[] pixelsB = b.getRaster().getPixels(0, 0, b.getWidth(), b.getHeight(), (int[]) null);
+        return Arrays.equals(pixelsA, pixelsB);
+    }
+}
@@ -0,0 +1,86 @@
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+import static jdk.incubator.vector.VectorOperators.LSHR;
+
+/**
+ * Vector API versions of the interior loops of {@link RowKernels}, processing as many pixels per
+ * instruction as the platform's preferred vector shape holds. Kept in its own source root, the only one
+ * compiled with {@code --add-modules jdk.incubator.vector}, and loaded by name by {@link RowKernels} when
+ * the module is present, so the class must not be referenced from anywhere else.
+ */
+final class VectorKernels implements RowKernels.Vectorized {
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Float> FLOATS = FloatVector.SPECIES_PREFERRED;
+    // Byte lanes matching the float lanes for the offsets; there is no byte shape below 64 bits
+    private static final VectorSpecies<Byte> BYTES = (FLOATS.length() >= 8)
+            ? VectorSpecies.of(byte.class, VectorShape.forBitSize(FLOATS.length() * Byte.SIZE)) : null;
+
+    VectorKernels() {
+    }
+
+    @Override
+    public boolean isSupported() {
+        return BYTES != null && INTS.length() >= 8;
+    }
+
+    @Override
+    public int gradients(int[] current, int currentOffset, int[] up, int upOffset, int[] down, int downOffset,
+                         int from, int to, int[] gradients) {
+        int x = from;
+        int bound = from + INTS.loopBound(to - from);
+        for (; x < bound; x += INTS.length()) {
+            IntVector left = IntVector.fromArray(INTS, current, currentOffset + x - 1);
+            IntVector right = IntVector.fromArray(INTS, current, currentOffset + x + 1);
+            IntVector above = IntVector.fromArray(INTS, up, upOffset + x);
+            IntVector below = IntVector.fromArray(INTS, down, downOffset + x);
+
+            // 채널 평면별로 차이를 구해 제곱합을 누적한다
+            IntVector sum = square(channel(right, 16).sub(channel(left, 16)))
+                    .add(square(channel(right, 8).sub(channel(left, 8))))
+                    .add(square(right.and(0xff).sub(left.and(0xff))))
+                    .add(square(channel(below, 16).sub(channel(above, 16))))
+                    .add(square(channel(below, 8).sub(channel(above, 8))))
+                    .add(square(below.and(0xff).sub(above.and(0xff))));
+            sum.intoArray(gradients, x);
+        }
+        return x;
+    }
+
+    @Override
+    public int costs(float[] energy, float[] previous, float[] current, byte[] offsets, int currentOffset,
+                     int from, int to) {
+        int x = from;
+        int bound = from + FLOATS.loopBound(to - from);
+        ByteVector none = ByteVector.zero(BYTES);
+        for (; x < bound; x += FLOATS.length()) {
+            FloatVector center = FloatVector.fromArray(FLOATS, previous, x);
+            FloatVector left = FloatVector.fromArray(FLOATS, previous, x - 1);
+            FloatVector right = FloatVector.fromArray(FLOATS, previous, x + 1);
+
+            // 스칼라 코드와 같이 위쪽, 왼쪽, 오른쪽 순으로 더 작을 때만 바꾼다
+            VectorMask<Float> takeLeft = left.lt(center);
+            FloatVector minEnergy = center.blend(left, takeLeft);
+            VectorMask<Float> takeRight = right.lt(minEnergy);
+            minEnergy = minEnergy.blend(right, takeRight);
+
+            FloatVector.fromArray(FLOATS, energy, x).add(minEnergy).intoArray(current, currentOffset + x);
+            none.blend((byte) -1, takeLeft.cast(BYTES))
+                    .blend((byte) 1, takeRight.cast(BYTES))
+                    .intoArray(offsets, currentOffset + x);
+        }
+        return x;
+    }
+
+    private static IntVector channel(IntVector rgb, int shift) {
+        return rgb.lanewise(LSHR, shift).and(0xff);
+    }
+
+    private static IntVector square(IntVector delta) {
+        return delta.mul(delta);
+    }
+}
@@ -0,0 +1,109 @@
+/**
+ * Base of the seam finders that refine a guide path at full resolution with a DP restricted to a band
+ * of {@code bandWidth} pixels on each side of it. Subclasses fill {@link #center} with the guide path,
+ * one column per row and moving at most one pixel per row, and call {@link #refine}.
+ */
+abstract class BandSeamFinder extends SeamFinder {
+    final int bandWidth;
+
+    int[] center;
+    int[] bandFrom;
+    private double[][] bandCost;
+    private int[][] bandBacktrack;
+
+    BandSeamFinder(int bandWidth) {
+        this.bandWidth = bandWidth;
+    }
+
+    public int getBandWidth() {
+        return bandWidth;
+    }
+
+    @Override
+    long getTableBytes() {
+        long bytes = super.getTableBytes();
+        if (bandCost != null) {
+            bytes += (long) bandCost.length * bandCost[0].length * (Double.BYTES + Integer.BYTES);
+        }
+        return bytes;
+    }
+
+    // Grows the band tables to at least the given number of rows
+    void ensureBand(int height) {
+        if (center == null || center.length < height) {
+            center = new int[height];
+            bandFrom = new int[height];
+            bandCost = new double[height][2 * bandWidth + 1];
+            bandBacktrack = new int[height][2 * bandWidth + 1];
+        }
+    }
+
+    // Full-resolution DP restricted to the band around the guide path
+    int[] refine(double[][] energy, int width, int height, int[] seam, long start) {
+        int size = 2 * bandWidth + 1;
+        for (int y = 0; y < height; y++) {
+            if (y % CANCEL_CHECK_ROWS == 0) {
+                SeamCarver.checkCancelled();
+            }
+            bandFrom[y] = center[y] - bandWidth;
+            double[] cost = bandCost[y];
+            int[] offsets = bandBacktrack[y];
+
+            for (int i = 0; i < size; i++) {
+                int x = bandFrom[y] + i;
+                if (x < 0 || x >= width) {
+                    cost[i] = Double.POSITIVE_INFINITY;
+                    continue;
+                }
+                if (y == 0) {
+                    cost[i] = energy[0][x];
+                    continue;
+                }
+
+                // Same tie order as the standard search: straight up, then left, then right
+                double minEnergy = costAt(y - 1, x);
+                double leftCost = costAt(y - 1, x - 1);
+                double rightCost = costAt(y - 1, x + 1);
+                if (leftSteps != null) {
+                    // 순방향 에너지: 대각선으로 들어오는 시임이 새로 만드는 경계의 비용
+                    leftCost += leftSteps[y][x] & 0xff;
+                    rightCost += rightSteps[y][x] & 0xff;
+                }
+                int offset = 0;
+                if (leftCost < minEnergy) {
+                    minEnergy = leftCost;
+                    offset = -1;
+                }
+                if (rightCost < minEnergy) {
+                    minEnergy = rightCost;
+                    offset = 1;
+                }
+                cost[i] = energy[y][x] + minEnergy;
+                offsets[i] = offset;
+            }
+        }
+
+        start = recordPhase(ResizeStatistics.Phase.DP, start);
+
+        double minTotalEnergy = Double.POSITIVE_INFINITY;
+        int minIndex = -1;
+        for (int i = 0; i < size; i++) {
+            if (bandCost[height - 1][i] < minTotalEnergy) {
+                minTotalEnergy = bandCost[height - 1][i];
+                minIndex = i;
+            }
+        }
+
+        seam[height - 1] = bandFrom[height - 1] + minIndex;
+        for (int y = height - 1; y > 0; y--) {
+            seam[y - 1] = seam[y] + bandBacktrack[y][seam[y] - bandFrom[y]];
+        }
+        recordPhase(ResizeStatistics.Phase.BACKTRACK, start);
+        return seam;
+    }
+
+    private double costAt(int y, int x) {
+        int i = x - bandFrom[y];
+        return (i < 0 || i >= bandCost[y].length) ? Double.POSITIVE_INFINITY : bandCost[y][i];
+    }
+}
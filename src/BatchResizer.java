@@ -0,0 +1,572 @@
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Headless command-line entry point that resizes many images with {@link ImageResizer}.
+ * Images are processed concurrently on a fixed-size worker pool; every result is written to the
+ * output directory as soon as it is done and reported with its timing on standard output.
+ *
+ * <pre>
+ * java BatchResizer -o out -s 800x600 -s 50%x100% [-m standard|pyramid|forced] [-e energy] [-k seams] [-j jobs] [-b band] [-c cacheMB] [-p] [-t] [-x | -X] inputs...
+ * </pre>
+ * Inputs are image files, directories (their images, not recursive) or {@code @list} files naming one input per line.
+ * A size component may be a pixel count, a percentage of the original, or {@code *} to keep it.
+ * With {@code -c} the workers share a {@link ResizeCache} of that many megabytes, so repeated inputs
+ * (same pixels, any file name) are only carved once.
+ * Standard width changes use the seam map stored next to an input ({@code image.png.seams}, see
+ * {@link SeamMapFile}) when it matches the image, and ignore one that cannot be read; {@code -p} writes
+ * missing, outdated or unreadable seam maps, covering every requested width, so later runs on any machine
+ * skip the seam search.
+ * With {@code -x} images are carved out of core by {@link OutOfCoreCarver}, with scratch files in the
+ * output directory, so inputs larger than the heap can be reduced (standard method only); {@code -X}
+ * keeps the same bands in off-heap memory, which is freed after each image, so large images do not grow
+ * the workers' heaps (raise {@code -XX:MaxDirectMemorySize} accordingly).
+ * {@code -e} picks the energy function by name (see {@link EnergyFunction#forName(String)}); out-of-core
+ * carving only supports the default {@code dual-gradient}.
+ * {@code -k} lets standard reductions remove up to that many seams per pass (see {@link ImageResizer#setSeamsPerPass(int)});
+ * such reductions search their seams instead of using seam maps.
+ * With {@code -t} the inputs are the frames of one sequence in the given order (directories sorted by name),
+ * carved one after the other with a {@link FrameSequence} per size instead of independently; frames are
+ * decoded ahead on one thread, carved on the main thread and encoded on {@code -j} minus two threads (at
+ * least one) while the next frame is carved.
+ */
+public class BatchResizer {
+    private static final List<String> IMAGE_EXTENSIONS = Arrays.asList("jpg", "jpeg", "png", "bmp");
+    // 시퀀스 모드에서 미리 읽어 두거나 저장을 기다릴 수 있는 최대 프레임 수
+    private static final int FRAME_LOOKAHEAD = 4;
+    // 시퀀스 모드에서 시임이 프레임 사이에 움직일 수 있는 폭과 전체 탐색을 다시 하는 프레임 간격
+    private static final int SEQUENCE_BAND_WIDTH = 8;
+    private static final int KEYFRAME_INTERVAL = 30;
+
+    private final File outputDirectory;
+    private final List<String> sizes;
+    private final String method;
+    private final int pyramidBandWidth;
+    private String energyName = EnergyCalculator.NAME;
+    private boolean outOfCore;
+    private boolean offHeap;
+    private ResizeCache resizeCache;
+    private boolean precomputeSeamMaps;
+    private int seamsPerPass = 1;
+    private WorkspacePool workspacePool;
+
+    public BatchResizer(File outputDirectory, List<String> sizes, String method, int pyramidBandWidth) {
+        this.outputDirectory = outputDirectory;
+        this.sizes = sizes;
+        this.method = method;
+        this.pyramidBandWidth = pyramidBandWidth;
+    }
+
+    /**
+     * Carves every image through memory-mapped scratch files instead of the heap; only reductions are supported.
+     */
+    public void setOutOfCore(boolean outOfCore) {
+        this.outOfCore = outOfCore;
+    }
+
+    /**
+     * Shares the given cache between all workers; {@code null} carves every image.
+     */
+    public void setResizeCache(ResizeCache resizeCache) {
+        this.resizeCache = resizeCache;
+    }
+
+    /**
+     * Writes a seam map next to every input that has no up-to-date one before resizing it.
+     */
+    public void setPrecomputeSeamMaps(boolean precomputeSeamMaps) {
+        this.precomputeSeamMaps = precomputeSeamMaps;
+    }
+
+    /**
+     * With out-of-core carving, keeps the bands in off-heap memory instead of scratch files.
+     */
+    public void setOffHeap(boolean offHeap) {
+        this.offHeap = offHeap;
+    }
+
+    /**
+     * Sets the energy function every image is carved with, by its {@link EnergyFunction#forName(String)} name.
+     */
+    public void setEnergyName(String energyName) {
+        this.energyName = energyName;
+    }
+
+    /**
+     * Sets the number of seams standard reductions may remove per pass; see {@link ImageResizer#setSeamsPerPass(int)}.
+     */
+    public void setSeamsPerPass(int seamsPerPass) {
+        this.seamsPerPass = seamsPerPass;
+    }
+
+    public static void main(String[] args) {
+        // AWT가 로드되기 전에 설정해야 디스플레이 없는 서버에서도 동작한다
+        System.setProperty("java.awt.headless", "true");
+
+        File outputDirectory = null;
+        List<String> sizes = new ArrayList<>();
+        List<String> inputs = new ArrayList<>();
+        String method = "standard";
+        String energyName = EnergyCalculator.NAME;
+        int jobs = Runtime.getRuntime().availableProcessors();
+        int bandWidth = 4;
+        boolean outOfCore = false;
+        boolean offHeap = false;
+        long cacheMegabytes = 0;
+        boolean precompute = false;
+        int seamsPerPass = 1;
+        boolean sequence = false;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "-o":
+                        outputDirectory = new File(args[++i]);
+                        break;
+                    case "-s":
+                        sizes.add(args[++i]);
+                        break;
+                    case "-m":
+                        method = args[++i];
+                        break;
+                    case "-e":
+                        energyName = args[++i];
+                        break;
+                    case "-k":
+                        seamsPerPass = Integer.parseInt(args[++i]);
+                        break;
+                    case "-j":
+                        jobs = Integer.parseInt(args[++i]);
+                        break;
+                    case "-b":
+                        bandWidth = Integer.parseInt(args[++i]);
+                        break;
+                    case "-c":
+                        cacheMegabytes = Long.parseLong(args[++i]);
+                        break;
+                    case "-p":
+                        precompute = true;
+                        break;
+                    case "-t":
+                        sequence = true;
+                        break;
+                    case "-x":
+                        outOfCore = true;
+                        break;
+                    case "-X":
+                        outOfCore = true;
+                        offHeap = true;
+                        break;
+                    default:
+                        inputs.add(args[i]);
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException ex) {
+            usage("Invalid arguments: " + ex.getMessage());
+            return;
+        }
+
+        if (outputDirectory == null || sizes.isEmpty() || inputs.isEmpty() || jobs < 1 || cacheMegabytes < 0 || seamsPerPass < 1
+                || !Arrays.asList("standard", "pyramid", "forced").contains(method)
+                || (outOfCore && (!method.equals("standard") || !energyName.equals(EnergyCalculator.NAME)))
+                || (sequence && (outOfCore || precompute))) {
+            usage("Missing or invalid options");
+            return;
+        }
+        try {
+            EnergyFunction.forName(energyName);
+        } catch (IllegalArgumentException ex) {
+            usage(ex.getMessage());
+            return;
+        }
+
+        List<File> files;
+        try {
+            files = collectInputs(inputs);
+            Files.createDirectories(outputDirectory.toPath());
+        } catch (IOException ex) {
+            System.err.println("Error: " + ex.getMessage());
+            System.exit(1);
+            return;
+        }
+
+        BatchResizer batchResizer = new BatchResizer(outputDirectory, sizes, method, bandWidth);
+        batchResizer.setEnergyName(energyName);
+        batchResizer.setOutOfCore(outOfCore);
+        batchResizer.setOffHeap(offHeap);
+        batchResizer.setPrecomputeSeamMaps(precompute);
+        batchResizer.setSeamsPerPass(seamsPerPass);
+        if (cacheMegabytes > 0) {
+            batchResizer.setResizeCache(new ResizeCache(cacheMegabytes << 20));
+        }
+        int failures = sequence ? batchResizer.runSequence(files, jobs) : batchResizer.run(files, jobs);
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    /**
+     * Resizes every file to every requested size using {@code jobs} worker threads.
+     *
+     * @return The number of images that failed.
+     */
+    public int run(List<File> files, int jobs) {
+        // 작업 스레드마다 하나씩 작업 공간을 돌려 쓴다
+        workspacePool = new WorkspacePool(jobs);
+        ExecutorService executor = Executors.newFixedThreadPool(jobs);
+        CompletionService<String> completionService = new ExecutorCompletionService<>(executor);
+        for (File file : files) {
+            completionService.submit(() -> outOfCore ? processOutOfCore(file) : process(file));
+        }
+
+        long start = System.nanoTime();
+        int failures = 0;
+        try {
+            // 끝난 순서대로 결과를 출력
+            for (int i = 0; i < files.size(); i++) {
+                try {
+                    System.out.println(completionService.take().get());
+                } catch (ExecutionException ex) {
+                    failures++;
+                    System.err.println("FAILED " + ex.getCause().getMessage());
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+            return files.size();
+        }
+        executor.shutdown();
+
+        System.out.printf(Locale.ROOT, "%d images, %d failed, %.1f s total%n",
+                files.size(), failures, (System.nanoTime() - start) / 1e9);
+        if (resizeCache != null) {
+            System.out.println("cache: " + resizeCache);
+        }
+        return failures;
+    }
+
+    /**
+     * Resizes the files as consecutive frames of one sequence, with one {@link FrameSequence} per requested
+     * size. Decoding, carving and encoding overlap: one thread reads frames up to {@code FRAME_LOOKAHEAD}
+     * ahead, the calling thread carves them in order (spreading large frames over the common fork/join
+     * pool), and {@code jobs - 2} threads, at least one, write the results while later frames are carved.
+     *
+     * @return The number of frames that failed.
+     */
+    public int runSequence(List<File> files, int jobs) {
+        ExecutorService decoder = Executors.newSingleThreadExecutor();
+        ExecutorService encoder = Executors.newFixedThreadPool(Math.max(jobs - 2, 1));
+        CompletionService<String> completionService = new ExecutorCompletionService<>(encoder);
+        workspacePool = new WorkspacePool(1);
+        FrameSequence[] sequences = new FrameSequence[sizes.size()];
+        for (int i = 0; i < sequences.length; i++) {
+            sequences[i] = new FrameSequence(SEQUENCE_BAND_WIDTH, KEYFRAME_INTERVAL);
+        }
+
+        // 디코딩 스레드가 하나이므로 프레임은 제출한 순서대로 읽힌다
+        List<Future<BufferedImage>> frames = new ArrayList<>(Collections.nCopies(files.size(), null));
+        for (int i = 0; i < Math.min(FRAME_LOOKAHEAD, files.size()); i++) {
+            frames.set(i, decoder.submit(readTask(files.get(i))));
+        }
+
+        long start = System.nanoTime();
+        int failures = 0;
+        int pending = 0;
+        try {
+            for (int i = 0; i < files.size(); i++) {
+                if (i + FRAME_LOOKAHEAD < files.size()) {
+                    frames.set(i + FRAME_LOOKAHEAD, decoder.submit(readTask(files.get(i + FRAME_LOOKAHEAD))));
+                }
+                File file = files.get(i);
+                try {
+                    BufferedImage frame = frames.get(i).get();
+                    frames.set(i, null);
+                    completionService.submit(carveFrame(file, frame, sequences));
+                    pending++;
+                } catch (ExecutionException | RuntimeException ex) {
+                    failures++;
+                    Throwable cause = (ex instanceof ExecutionException) ? ex.getCause() : ex;
+                    System.err.println("FAILED " + file.getName() + ": " + cause.getMessage());
+                }
+
+                // 저장이 밀리면 결과 이미지가 쌓이지 않도록 기다린다
+                while (pending > FRAME_LOOKAHEAD || (i == files.size() - 1 && pending > 0)) {
+                    pending--;
+                    try {
+                        System.out.println(completionService.take().get());
+                    } catch (ExecutionException ex) {
+                        failures++;
+                        System.err.println("FAILED " + ex.getCause().getMessage());
+                    }
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            decoder.shutdownNow();
+            encoder.shutdownNow();
+            return files.size();
+        }
+        decoder.shutdown();
+        encoder.shutdown();
+
+        System.out.printf(Locale.ROOT, "%d frames, %d failed, %.1f s total%n",
+                files.size(), failures, (System.nanoTime() - start) / 1e9);
+        for (int i = 0; i < sequences.length; i++) {
+            System.out.printf(Locale.ROOT, "sequence %s: %.1f%% of pixels changed between frames, %.1f%% of seams warm-started%n",
+                    sizes.get(i), 100 * sequences[i].getChangedRatio(), 100 * sequences[i].getGuidedRatio());
+        }
+        return failures;
+    }
+
+    private static Callable<BufferedImage> readTask(File file) {
+        return () -> {
+            BufferedImage image = ImageIO.read(file);
+            if (image == null) {
+                throw new IOException(file + ": not a readable image");
+            }
+            return image;
+        };
+    }
+
+    // 프레임 하나를 호출 스레드에서 모든 목표 크기로 변환하고, 저장해서 보고 줄을 돌려줄 작업을 만든다
+    private Callable<String> carveFrame(File file, BufferedImage frame, FrameSequence[] sequences) {
+        String baseName = stripExtension(file.getName());
+        StringBuilder report = new StringBuilder(file.getName())
+                .append(' ').append(frame.getWidth()).append('x').append(frame.getHeight());
+        List<BufferedImage> results = new ArrayList<>();
+        List<File> outputs = new ArrayList<>();
+
+        // 프레임 해시와 캐시 항목, 작업 공간을 크기마다 버리지 않도록 변환기는 프레임마다 하나만 만든다.
+        // 에너지 함수의 상태는 크기마다 그 시퀀스가 이전 프레임에서 복사해 준다
+        ImageResizer resizer = new ImageResizer(frame);
+        resizer.setEnergyFunction(EnergyFunction.forName(energyName));
+        resizer.setPyramidBandWidth(pyramidBandWidth);
+        resizer.setWorkspacePool(workspacePool);
+        resizer.setResizeCache(resizeCache);
+        resizer.setForkJoinPool(ForkJoinPool.commonPool());
+        for (int i = 0; i < sizes.size(); i++) {
+            int[] target = parseSize(sizes.get(i), frame.getWidth(), frame.getHeight());
+            resizer.setFrameSequence(sequences[i]);
+
+            long carveStart = System.nanoTime();
+            results.add(resizer.resize(target[0], target[1], method, progress -> {
+            }));
+            outputs.add(new File(outputDirectory, baseName + "_" + target[0] + "x" + target[1] + ".png"));
+            ResizeStatistics statistics = resizer.getLastStatistics();
+            report.append(String.format(Locale.ROOT, " | %dx%d carve %.0f ms (%d seams, energy %.0f ms, dp %.0f ms)",
+                    target[0], target[1], (System.nanoTime() - carveStart) / 1e6, statistics.getSeams(),
+                    statistics.getPhaseNanos(ResizeStatistics.Phase.ENERGY) / 1e6,
+                    statistics.getPhaseNanos(ResizeStatistics.Phase.DP) / 1e6));
+        }
+
+        return () -> {
+            long writeStart = System.nanoTime();
+            for (int i = 0; i < results.size(); i++) {
+                ImageIO.write(results.get(i), "png", outputs.get(i));
+            }
+            return report.append(String.format(Locale.ROOT, " | write %.0f ms", (System.nanoTime() - writeStart) / 1e6)).toString();
+        };
+    }
+
+    // 이미지 하나를 읽어 모든 목표 크기로 변환하고 저장한 뒤 소요 시간을 한 줄로 돌려준다
+    private String process(File file) throws IOException {
+        long start = System.nanoTime();
+        BufferedImage image = ImageIO.read(file);
+        if (image == null) {
+            throw new IOException(file + ": not a readable image");
+        }
+        long readTime = System.nanoTime() - start;
+
+        // 작업 스레드끼리 이미 병렬이므로 이미지 하나는 직렬로 처리하고, 여러 크기는 시임 분석을 재사용한다
+        ImageResizer resizer = new ImageResizer(image);
+        // 에너지 함수는 이미지마다 상태를 가지므로 작업마다 새로 만든다
+        resizer.setEnergyFunction(EnergyFunction.forName(energyName));
+        // 여러 크기로 바꾸면 시임 순서를 가장 좁은 너비까지 한 번만 기록해 모든 너비에 쓴다
+        resizer.setKeepSeamIndex(sizes.size() > 1);
+        resizer.setSeamIndexMinWidth(narrowestWidth(image));
+        resizer.setSeamsPerPass(seamsPerPass);
+        resizer.setPyramidBandWidth(pyramidBandWidth);
+        resizer.setWorkspacePool(workspacePool);
+        resizer.setResizeCache(resizeCache);
+        File seamMap = SeamMapFile.sidecarFor(file);
+        resizer.setSeamMapFile(seamMap);
+
+        StringBuilder report = new StringBuilder(file.getName())
+                .append(' ').append(image.getWidth()).append('x').append(image.getHeight())
+                .append(String.format(Locale.ROOT, " read %.0f ms", readTime / 1e6));
+
+        // 읽을 수 없거나 이 이미지와 맞지 않는 시임 맵도 -p면 새로 쓴다
+        if (precomputeSeamMaps && (!seamMap.isFile() || seamMap.lastModified() < file.lastModified()
+                || !resizer.loadSeamMap())) {
+            // 요청한 가장 좁은 너비와 원본 절반 중 더 좁은 쪽까지 분석해 둔다
+            long mapStart = System.nanoTime();
+            resizer.buildSeamIndex(Math.max(Math.min(narrowestWidth(image), image.getWidth() / 2), 1), progress -> {
+            });
+            resizer.writeSeamMap(seamMap);
+            report.append(String.format(Locale.ROOT, " | seam map %.0f ms", (System.nanoTime() - mapStart) / 1e6));
+        }
+        String baseName = stripExtension(file.getName());
+
+        for (String size : sizes) {
+            int[] target = parseSize(size, image.getWidth(), image.getHeight());
+            long carveStart = System.nanoTime();
+            BufferedImage result = resizer.resize(target[0], target[1], method, progress -> {
+            });
+            long carveTime = System.nanoTime() - carveStart;
+
+            long writeStart = System.nanoTime();
+            File output = new File(outputDirectory, baseName + "_" + target[0] + "x" + target[1] + ".png");
+            ImageIO.write(result, "png", output);
+            long writeTime = System.nanoTime() - writeStart;
+
+            ResizeStatistics statistics = resizer.getLastStatistics();
+            if (statistics.isCacheHit()) {
+                report.append(String.format(Locale.ROOT, " | %dx%d cached write %.0f ms", target[0], target[1], writeTime / 1e6));
+                continue;
+            }
+            report.append(String.format(Locale.ROOT, " | %dx%d carve %.0f ms (%d seams, %.0f/s, energy %.0f ms, dp %.0f ms) write %.0f ms",
+                    target[0], target[1], carveTime / 1e6, statistics.getSeams(), statistics.getSeamsPerSecond(),
+                    statistics.getPhaseNanos(ResizeStatistics.Phase.ENERGY) / 1e6,
+                    statistics.getPhaseNanos(ResizeStatistics.Phase.DP) / 1e6, writeTime / 1e6));
+        }
+
+        if (resizer.getSeamMapError() != null) {
+            report.append(" | ").append(precomputeSeamMaps ? "rewrote " : "ignored ")
+                    .append(resizer.getSeamMapError().getMessage());
+        }
+        report.append(String.format(Locale.ROOT, " | total %.0f ms", (System.nanoTime() - start) / 1e6));
+        return report.toString();
+    }
+
+    // 큰 이미지용: 크기마다 파일에서 다시 띠 단위로 읽어 매핑된 파일(또는 힙 밖 메모리) 위에서 깎고,
+    // 행 단위로 바로 저장한다. 띠 메모리는 이미지 하나가 끝나면 바로 해제된다
+    private String processOutOfCore(File file) throws IOException {
+        long start = System.nanoTime();
+        StringBuilder report = new StringBuilder(file.getName());
+        String baseName = stripExtension(file.getName());
+
+        try (OutOfCoreCarver carver = offHeap ? new OutOfCoreCarver() : new OutOfCoreCarver(outputDirectory)) {
+            for (String size : sizes) {
+                long readStart = System.nanoTime();
+                carver.load(file);
+                long readTime = System.nanoTime() - readStart;
+                if (report.length() == file.getName().length()) {
+                    report.append(' ').append(carver.getWidth()).append('x').append(carver.getHeight());
+                }
+
+                int[] target = parseSize(size, carver.getWidth(), carver.getHeight());
+                ResizeStatistics statistics = carver.resize(target[0], target[1], progress -> {
+                });
+
+                long writeStart = System.nanoTime();
+                carver.write(new File(outputDirectory, baseName + "_" + target[0] + "x" + target[1] + ".png"));
+                long writeTime = System.nanoTime() - writeStart;
+
+                report.append(String.format(Locale.ROOT, " | %dx%d read %.0f ms carve %.0f ms (%d seams, %.1f/s, %s) write %.0f ms",
+                        target[0], target[1], readTime / 1e6, statistics.getTotalNanos() / 1e6, statistics.getSeams(),
+                        statistics.getSeamsPerSecond(), statistics.getMethod(), writeTime / 1e6));
+            }
+        }
+
+        report.append(String.format(Locale.ROOT, " | total %.0f ms", (System.nanoTime() - start) / 1e6));
+        return report.toString();
+    }
+
+    // 요청한 크기 중 가장 좁은 너비. 확대는 같은 수의 시임을 빼는 너비로 센다
+    private int narrowestWidth(BufferedImage image) {
+        int width = image.getWidth();
+        int narrowest = width;
+        for (String size : sizes) {
+            int targetWidth = parseSize(size, width, image.getHeight())[0];
+            narrowest = Math.min(narrowest, Math.min(targetWidth, 2 * width - targetWidth));
+        }
+        return narrowest;
+    }
+
+    // "800x600", "50%x100%", "*x600" 형식의 크기를 원본 크기 기준의 픽셀 값으로 바꾼다
+    static int[] parseSize(String size, int width, int height) {
+        String[] parts = size.toLowerCase(Locale.ROOT).split("x");
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Invalid size: " + size);
+        }
+        int targetWidth = parseDimension(parts[0], width);
+        int targetHeight = parseDimension(parts[1], height);
+        if (targetWidth <= 0 || targetHeight <= 0) {
+            throw new IllegalArgumentException("Width and height must be positive: " + size);
+        }
+        return new int[]{targetWidth, targetHeight};
+    }
+
+    private static int parseDimension(String value, int original) {
+        if (value.equals("*")) {
+            return original;
+        }
+        if (value.endsWith("%")) {
+            double percent = Double.parseDouble(value.substring(0, value.length() - 1));
+            return (int) Math.round(original * percent / 100);
+        }
+        return Integer.parseInt(value);
+    }
+
+    private static List<File> collectInputs(List<String> inputs) throws IOException {
+        List<File> files = new ArrayList<>();
+        for (String input : inputs) {
+            if (input.startsWith("@")) {
+                // 파일 목록: 한 줄에 입력 하나
+                for (String line : Files.readAllLines(new File(input.substring(1)).toPath())) {
+                    if (!line.isBlank()) {
+                        files.addAll(collectInputs(List.of(line.trim())));
+                    }
+                }
+                continue;
+            }
+
+            File file = new File(input);
+            if (file.isDirectory()) {
+                File[] children = file.listFiles(child -> child.isFile() && isImage(child));
+                if (children != null) {
+                    Arrays.sort(children);
+                    files.addAll(Arrays.asList(children));
+                }
+            } else if (file.isFile()) {
+                files.add(file);
+            } else {
+                throw new IOException(input + ": no such file or directory");
+            }
+        }
+        return files;
+    }
+
+    private static boolean isImage(File file) {
+        String name = file.getName();
+        int dot = name.lastIndexOf('.');
+        return dot >= 0 && IMAGE_EXTENSIONS.contains(name.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    private static String stripExtension(String name) {
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+
+    private static void usage(String message) {
+        System.err.println(message);
+        System.err.println("Usage: java BatchResizer -o <output dir> -s <WxH> [-s <WxH> ...]"
+                + " [-m standard|pyramid|forced] [-e dual-gradient|luminance|forward] [-k seams per pass] [-j jobs] [-b pyramid band] [-c cache MB] [-p] [-t] [-x | -X] <file|dir|@list>...");
+        System.exit(2);
+    }
+}
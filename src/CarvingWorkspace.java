@@ -0,0 +1,152 @@
+import java.awt.image.BufferedImage;
+
+/**
+ * Reusable working memory for carving images up to a fixed number of pixels.
+ * It holds the pixel buffers, energy maps, seam finders and seam arrays used by {@link SeamCarver},
+ * so that once a workspace has been used for an image of a given size, carving another image of at
+ * most that size allocates nothing per seam. Everything is allocated lazily on first use and only
+ * grows; the logical image size inside the buffers shrinks and grows with the carving.
+ * A workspace is not thread-safe: use one per carving thread, e.g. through a {@link WorkspacePool}.
+ */
+public class CarvingWorkspace {
+    // Pixel storage slots; the caller's image, its transpose and a working copy for seam insertion
+    static final int MAIN = 0;
+    static final int TRANSPOSED = 1;
+    static final int COPY = 2;
+
+    private final int capacityWidth;
+    private final int capacityHeight;
+    private final long cells;
+
+    private final int[][] pixelSlots = new int[3][];
+    // Energy maps are kept per shape, so alternating width and height passes reuse both
+    private final double[][][] energySlots = new double[2][][];
+    private int nextEnergySlot;
+    private int[][] seams;
+    private int[] scratch;
+    private int[] marker;
+    private SeamFinder seamFinder;
+    private PyramidSeamFinder pyramidFinder;
+
+    /**
+     * @param capacityWidth  The largest width to carve, including any enlargement.
+     * @param capacityHeight The largest height to carve, including any enlargement.
+     */
+    public CarvingWorkspace(int capacityWidth, int capacityHeight) {
+        if (capacityWidth < 1 || capacityHeight < 1) {
+            throw new IllegalArgumentException("Invalid workspace size: " + capacityWidth + "x" + capacityHeight);
+        }
+        this.capacityWidth = capacityWidth;
+        this.capacityHeight = capacityHeight;
+        this.cells = (long) capacityWidth * capacityHeight;
+    }
+
+    public int getCapacityWidth() {
+        return capacityWidth;
+    }
+
+    public int getCapacityHeight() {
+        return capacityHeight;
+    }
+
+    /**
+     * Returns whether buffers of the given capacity, in either orientation, fit into this workspace.
+     */
+    public boolean fits(int width, int height) {
+        return (long) width * height <= cells;
+    }
+
+    /**
+     * Returns the number of pixels this workspace is sized for.
+     */
+    public long getCells() {
+        return cells;
+    }
+
+    /**
+     * Copies an image into the workspace's main pixel slot.
+     * The returned buffer is only valid until the workspace is used for another image.
+     */
+    public PixelBuffer load(BufferedImage image, int capacityWidth, int capacityHeight) {
+        return new PixelBuffer(image, capacityWidth, capacityHeight, pixels(MAIN));
+    }
+
+    /**
+     * Returns the approximate number of bytes allocated by this workspace so far.
+     */
+    public long getSizeInBytes() {
+        long bytes = 0;
+        for (int[] slot : pixelSlots) {
+            bytes += (slot == null) ? 0 : (long) slot.length * Integer.BYTES;
+        }
+        for (double[][] energy : energySlots) {
+            bytes += (energy == null) ? 0 : (long) energy.length * energy[0].length * Double.BYTES;
+        }
+        if (seams != null) {
+            bytes += (long) seams.length * seams[0].length * Integer.BYTES;
+        }
+        bytes += (seamFinder == null) ? 0 : seamFinder.getTableBytes();
+        bytes += (pyramidFinder == null) ? 0 : pyramidFinder.getTableBytes();
+        return bytes;
+    }
+
+    int[] pixels(int slot) {
+        if (pixelSlots[slot] == null) {
+            pixelSlots[slot] = new int[Math.toIntExact(cells)];
+        }
+        return pixelSlots[slot];
+    }
+
+    // An energy map with at least the given number of rows and columns
+    double[][] energy(int rows, int columns) {
+        for (double[][] energy : energySlots) {
+            if (energy != null && energy.length >= rows && energy[0].length >= columns) {
+                return energy;
+            }
+        }
+        double[][] energy = new double[rows][columns];
+        energySlots[nextEnergySlot] = energy;
+        nextEnergySlot = 1 - nextEnergySlot;
+        return energy;
+    }
+
+    // At least count seams of at least height entries each
+    int[][] seams(int count, int height) {
+        if (seams == null || seams.length < count || seams[0].length < height) {
+            int rows = Math.max(count, seams == null ? 0 : seams.length);
+            int columns = Math.max(height, seams == null ? 0 : seams[0].length);
+            seams = new int[rows][columns];
+        }
+        return seams;
+    }
+
+    int[] scratch(int length) {
+        if (scratch == null || scratch.length < length) {
+            scratch = new int[length];
+        }
+        return scratch;
+    }
+
+    int[] marker(int length) {
+        if (marker == null || marker.length < length) {
+            marker = new int[length];
+        }
+        return marker;
+    }
+
+    SeamFinder seamFinder() {
+        if (seamFinder == null) {
+            seamFinder = new SeamFinder();
+        }
+        seamFinder.invalidate();
+        return seamFinder;
+    }
+
+    PyramidSeamFinder pyramidFinder(int factor, int bandWidth) {
+        if (pyramidFinder == null || pyramidFinder.getFactor() != factor || pyramidFinder.getBandWidth() != bandWidth) {
+            pyramidFinder = new PyramidSeamFinder(factor, bandWidth);
+        }
+        pyramidFinder.invalidate();
+        return pyramidFinder;
+    }
+}
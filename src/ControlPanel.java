@@ -9,6 +9,7 @@ import java.util.function.Consumer;
 public class ControlPanel extends JPanel {
     private JButton loadButton;
     private JButton standardSeamButton;
+    private JButton pyramidSeamButton;
     private JButton forceSeamButton;
     private JButton downloadButton;
     private JTextField widthField;
@@ -36,6 +37,10 @@ public class ControlPanel extends JPanel {
         standardSeamButton.setEnabled(false);
         add(standardSeamButton);
 
+        pyramidSeamButton = new JButton("Pyramid Seam Carving");
+        pyramidSeamButton.setEnabled(false);
+        add(pyramidSeamButton);
+
         forceSeamButton = new JButton("Force Seam Position");
         forceSeamButton.setEnabled(false);
         add(forceSeamButton);
@@ -54,6 +59,7 @@ public class ControlPanel extends JPanel {
         // 액션 리스너 등록
         loadButton.addActionListener(e -> loadImage(parent));
         standardSeamButton.addActionListener(e -> resizeImage("standard"));
+        pyramidSeamButton.addActionListener(e -> resizeImage("pyramid"));
         forceSeamButton.addActionListener(e -> resizeImage("forced"));
         downloadButton.addActionListener(e -> downloadImage(parent));
     }
@@ -81,6 +87,7 @@ public class ControlPanel extends JPanel {
                     widthField.setText(String.valueOf(image.getWidth()));
                     heightField.setText(String.valueOf(image.getHeight()));
                     standardSeamButton.setEnabled(true);
+                    pyramidSeamButton.setEnabled(true);
                     forceSeamButton.setEnabled(true);
                     downloadButton.setEnabled(false);
                     if (imageLoadListener != null) {
@@ -104,9 +111,8 @@ public class ControlPanel extends JPanel {
                 return;
             }
 
-            // 버튼 비활성화
-            standardSeamButton.setEnabled(false);
-            forceSeamButton.setEnabled(false);
+            // 변환 중에도 다시 요청할 수 있다 (진행 중인 변환은 취소되고 새 요청으로 대체된다)
+            downloadButton.setEnabled(false);
 
             // 진행 바 초기화
             progressBar.setValue(0);
@@ -122,6 +128,17 @@ public class ControlPanel extends JPanel {
         }
     }
 
+    // 드래그 등 외부에서 정한 목표 크기를 입력 필드에 반영
+    public void setTargetSize(int width, int height) {
+        widthField.setText(String.valueOf(width));
+        heightField.setText(String.valueOf(height));
+    }
+
+    // 입력 필드의 크기로 변환을 요청 (버튼을 누른 것과 같다)
+    public void requestResize(String method) {
+        resizeImage(method);
+    }
+
     private void downloadImage(JFrame parent) {
         // 다운로드 기능 구현
     }
@@ -134,6 +151,7 @@ public class ControlPanel extends JPanel {
         widthField.setText(String.valueOf(width));
         heightField.setText(String.valueOf(height));
         standardSeamButton.setEnabled(true);
+        pyramidSeamButton.setEnabled(true);
         forceSeamButton.setEnabled(true);
         downloadButton.setEnabled(false);
     }
@@ -141,6 +159,7 @@ public class ControlPanel extends JPanel {
     // 변환 완료 후 버튼 상태 업데이트
     public void enableButtons() {
         standardSeamButton.setEnabled(true);
+        pyramidSeamButton.setEnabled(true);
         forceSeamButton.setEnabled(true);
         downloadButton.setEnabled(true);
     }
@@ -1,9 +1,36 @@
-import java.awt.image.BufferedImage;
-
 import java.awt.Color;
 import java.awt.image.BufferedImage;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The default energy function: the dual gradient of the RGB channels, with the image wrapping around
+ * at its borders.
+ */
+public class EnergyCalculator implements EnergyFunction {
+    static final String NAME = "dual-gradient";
+
+    // Images smaller than this are always processed on the calling thread
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+    // Pixels handed to a single fork/join task
+    private static final int PARALLEL_GRAIN = 1 << 14;
+
+    private ForkJoinPool forkJoinPool;
+
+    @Override
+    public void setForkJoinPool(ForkJoinPool forkJoinPool) {
+        this.forkJoinPool = forkJoinPool;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public int getVersion() {
+        return 1;
+    }
 
-public class EnergyCalculator {
     /**
      * Computes the energy of each pixel in the given image using the dual-gradient energy function.
      *
@@ -13,6 +40,10 @@ public class EnergyCalculator {
     public double[][] computeEnergy(BufferedImage image) {
         int width = image.getWidth();
         int height = image.getHeight();
+        if (RowKernels.isEnabled()) {
+            // Reads every pixel once instead of four Color lookups per pixel
+            return computeEnergy(new PixelBuffer(image, width, height), new double[height][width]);
+        }
         double[][] energy = new double[height][width];
 
         // Iterate over each pixel and compute its energy
@@ -25,6 +56,180 @@ public class EnergyCalculator {
         return energy;
     }
 
+    /**
+     * Computes the energy of each pixel in the given working buffer.
+     * The returned map has the same capacity as the buffer so it can be updated in place.
+     *
+     * @param buffer The packed pixel buffer.
+     * @return A 2D array of doubles indexed as {@code energy[y][x]}.
+     */
+    public double[][] computeEnergy(PixelBuffer buffer) {
+        return computeEnergy(buffer, new double[buffer.getCapacityHeight()][buffer.getStride()]);
+    }
+
+    /**
+     * Computes the energy of each pixel in the given working buffer into an existing map.
+     *
+     * @param buffer The packed pixel buffer.
+     * @param energy A map with at least as many rows as the buffer's capacity height and at least
+     *               as many columns as its stride; entries outside the image are left untouched.
+     * @return The given map.
+     */
+    @Override
+    public double[][] computeEnergy(PixelBuffer buffer, double[][] energy) {
+        if (energy.length < buffer.getCapacityHeight() || energy[0].length < buffer.getStride()) {
+            throw new IllegalArgumentException("Energy map is smaller than the buffer capacity");
+        }
+        int width = buffer.getWidth();
+        int height = buffer.getHeight();
+
+        ForkJoinPool pool = (width * height >= PARALLEL_THRESHOLD) ? forkJoinPool : null;
+        ParallelRange.forEach(pool, 0, height, Math.max(PARALLEL_GRAIN / width, 1), (fromRow, toRow) -> {
+            if (RowKernels.isEnabled()) {
+                int stride = buffer.getStride();
+                int[] pixels = buffer.getPixels();
+                int[] gradients = new int[width];
+                for (int y = fromRow; y < toRow; y++) {
+                    int up = (y == 0) ? height - 1 : y - 1;
+                    int down = (y == height - 1) ? 0 : y + 1;
+                    RowKernels.energyRow(pixels, y * stride, pixels, up * stride, pixels, down * stride, width,
+                            gradients, energy[y]);
+                }
+                return;
+            }
+            for (int y = fromRow; y < toRow; y++) {
+                for (int x = 0; x < width; x++) {
+                    energy[y][x] = computeEnergyAtPixel(buffer, x, y);
+                }
+            }
+        });
+
+        return energy;
+    }
+
+    /**
+     * Updates an energy map in place after a vertical seam has been removed from the buffer.
+     * The surviving entries are compacted along with the pixels and only the one-pixel
+     * band around the removed seam is recomputed.
+     *
+     * @param buffer The buffer after the seam has been removed.
+     * @param energy The energy map of the buffer before the seam was removed.
+     * @param seam   The x-coordinate of the removed pixel in each row.
+     */
+    @Override
+    public void updateEnergyAfterVerticalRemoval(PixelBuffer buffer, double[][] energy, int[] seam) {
+        int width = buffer.getWidth();
+        int height = buffer.getHeight();
+
+        for (int y = 0; y < height; y++) {
+            int s = seam[y];
+            System.arraycopy(energy[y], s + 1, energy[y], s, width - s);
+        }
+
+        for (int y = 0; y < height; y++) {
+            int s = seam[y];
+            int sUp = seam[(y == 0) ? height - 1 : y - 1];
+            int sDown = seam[(y == height - 1) ? 0 : y + 1];
+
+            // Pixels whose left/right or up/down neighbours changed
+            int from = Math.max(Math.min(s, Math.min(sUp, sDown)) - 1, 0);
+            int to = Math.min(Math.max(s, Math.max(sUp, sDown)), width - 1);
+            for (int x = from; x <= to; x++) {
+                energy[y][x] = computeEnergyAtPixel(buffer, x, y);
+            }
+
+            // The wrap-around neighbours of the border columns
+            if (s == 0) {
+                energy[y][width - 1] = computeEnergyAtPixel(buffer, width - 1, y);
+            } else if (s == width) {
+                energy[y][0] = computeEnergyAtPixel(buffer, 0, y);
+            }
+        }
+    }
+
+    /**
+     * Updates an energy map in place after some pixels changed. Only the changed pixels and their four
+     * neighbours, including the wrap-around ones at the borders, are recomputed; each row recomputes one
+     * span covering the changes in it and in the rows above and below.
+     */
+    @Override
+    public void updateEnergyAfterChange(PixelBuffer buffer, double[][] energy, int[] changedFrom, int[] changedTo) {
+        int width = buffer.getWidth();
+        int height = buffer.getHeight();
+
+        for (int y = 0; y < height; y++) {
+            int up = (y == 0) ? height - 1 : y - 1;
+            int down = (y == height - 1) ? 0 : y + 1;
+            int from = width;
+            int to = -1;
+            if (changedFrom[y] <= changedTo[y]) {
+                from = changedFrom[y] - 1;
+                to = changedTo[y] + 1;
+            }
+            // Pixels whose up or down neighbour changed
+            for (int row : new int[]{up, down}) {
+                if (changedFrom[row] <= changedTo[row]) {
+                    from = Math.min(from, changedFrom[row]);
+                    to = Math.max(to, changedTo[row]);
+                }
+            }
+            if (from > to) {
+                continue;
+            }
+
+            for (int x = Math.max(from, 0); x <= Math.min(to, width - 1); x++) {
+                energy[y][x] = computeEnergyAtPixel(buffer, x, y);
+            }
+            // The wrap-around neighbours of changed border columns
+            if (from < 0) {
+                energy[y][width - 1] = computeEnergyAtPixel(buffer, width - 1, y);
+            }
+            if (to >= width) {
+                energy[y][0] = computeEnergyAtPixel(buffer, 0, y);
+            }
+        }
+    }
+
+    /**
+     * Computes the dual-gradient energy of the pixel at (x, y) directly from the packed ARGB values.
+     *
+     * @param buffer The packed pixel buffer.
+     * @param x      The x-coordinate of the pixel.
+     * @param y      The y-coordinate of the pixel.
+     * @return The energy of the pixel as a double.
+     */
+    private double computeEnergyAtPixel(PixelBuffer buffer, int x, int y) {
+        int width = buffer.getWidth();
+        int height = buffer.getHeight();
+        int stride = buffer.getStride();
+        int[] pixels = buffer.getPixels();
+
+        // Handle border pixels by treating the image as if it wraps around
+        int left = (x == 0) ? width - 1 : x - 1;
+        int right = (x == width - 1) ? 0 : x + 1;
+        int up = (y == 0) ? height - 1 : y - 1;
+        int down = (y == height - 1) ? 0 : y + 1;
+
+        int row = y * stride;
+        int rgbLeft = pixels[row + left];
+        int rgbRight = pixels[row + right];
+        int rgbUp = pixels[up * stride + x];
+        int rgbDown = pixels[down * stride + x];
+
+        int deltaXRed = ((rgbRight >> 16) & 0xff) - ((rgbLeft >> 16) & 0xff);
+        int deltaXGreen = ((rgbRight >> 8) & 0xff) - ((rgbLeft >> 8) & 0xff);
+        int deltaXBlue = (rgbRight & 0xff) - (rgbLeft & 0xff);
+
+        int deltaYRed = ((rgbDown >> 16) & 0xff) - ((rgbUp >> 16) & 0xff);
+        int deltaYGreen = ((rgbDown >> 8) & 0xff) - ((rgbUp >> 8) & 0xff);
+        int deltaYBlue = (rgbDown & 0xff) - (rgbUp & 0xff);
+
+        int deltaXSquared = deltaXRed * deltaXRed + deltaXGreen * deltaXGreen + deltaXBlue * deltaXBlue;
+        int deltaYSquared = deltaYRed * deltaYRed + deltaYGreen * deltaYGreen + deltaYBlue * deltaYBlue;
+
+        return deltaXSquared + deltaYSquared;
+    }
+
     /**
      * Computes the energy of a single pixel at (x, y) using the dual-gradient energy function.
      *
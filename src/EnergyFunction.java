@@ -0,0 +1,114 @@
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A pixel energy for seam carving: seams through low-energy pixels are removed first.
+ * {@link SeamCarver} computes the full map once per pass and then keeps it up to date seam by seam,
+ * so every implementation recomputes only the band around a removed seam. The band is the
+ * same one {@link SeamFinder} recomputes, so an energy may depend on the pixel and its eight neighbours.
+ *
+ * <p>Implementations may keep state derived from the pixels between those calls and are then not
+ * thread-safe; give every {@link SeamCarver} its own instance, e.g. from {@link #forName(String)}.
+ */
+public interface EnergyFunction {
+    /**
+     * Returns the name of the energy function, used to tell cached analyses of different functions apart.
+     */
+    String getName();
+
+    /**
+     * Returns the version of the energy function; it changes whenever the computed values do, so
+     * that stored seam maps of older versions are recomputed.
+     */
+    int getVersion();
+
+    /**
+     * Sets the pool used to compute full energy maps of large buffers.
+     *
+     * @param forkJoinPool The pool to use, or {@code null} to always compute on the calling thread.
+     */
+    void setForkJoinPool(ForkJoinPool forkJoinPool);
+
+    /**
+     * Computes the energy of each pixel in the given working buffer into an existing map.
+     *
+     * @param buffer The packed pixel buffer.
+     * @param energy A map with at least as many rows as the buffer's capacity height and at least
+     *               as many columns as its stride; entries outside the image are left untouched.
+     * @return The given map.
+     */
+    double[][] computeEnergy(PixelBuffer buffer, double[][] energy);
+
+    /**
+     * Updates an energy map in place after a vertical seam has been removed from the buffer.
+     *
+     * @param buffer The buffer after the seam has been removed.
+     * @param energy The energy map of the buffer before the seam was removed.
+     * @param seam   The x-coordinate of the removed pixel in each row.
+     */
+    void updateEnergyAfterVerticalRemoval(PixelBuffer buffer, double[][] energy, int[] seam);
+
+    /**
+     * Updates an energy map in place after some pixels of the buffer changed without the image changing
+     * size, e.g. when the next frame of a sequence was loaded over the previous one. The map and any
+     * state kept by this function must be those of the buffer before the change, as left by
+     * {@link #computeEnergy} or a previous call of this method. The default recomputes the whole map.
+     *
+     * @param buffer      The buffer after the change.
+     * @param energy      The energy map of the buffer before the change.
+     * @param changedFrom The first changed column of each row.
+     * @param changedTo   The last changed column of each row; rows where it is less than
+     *                    {@code changedFrom} did not change.
+     */
+    default void updateEnergyAfterChange(PixelBuffer buffer, double[][] energy, int[] changedFrom, int[] changedTo) {
+        computeEnergy(buffer, energy);
+    }
+
+    /**
+     * Replaces the per-image state of this function with a copy of another instance's of the same class,
+     * so that this one can go on updating a copy of the other's energy map. Functions without such state
+     * need not do anything.
+     */
+    default void copyStateFrom(EnergyFunction other) {
+    }
+
+    /**
+     * Returns the extra cost of a seam entering each pixel from the upper left neighbour, indexed like
+     * the energy map as unsigned bytes, or {@code null} when a seam costs the sum of its pixels' energies.
+     * Forward energies return the maps of the last computed or updated buffer.
+     */
+    default byte[][] getLeftStepCosts() {
+        return null;
+    }
+
+    /**
+     * Returns the extra cost of a seam entering each pixel from the upper right neighbour; see
+     * {@link #getLeftStepCosts()}.
+     */
+    default byte[][] getRightStepCosts() {
+        return null;
+    }
+
+    /**
+     * Returns the number of bytes of per-image state kept between calls, besides the energy map.
+     */
+    default long getSizeInBytes() {
+        return 0;
+    }
+
+    /**
+     * Creates a new instance of the named energy function: {@code "dual-gradient"} (the default, on RGB),
+     * {@code "luminance"} (Sobel on a luminance plane) or {@code "forward"} (forward energy on luminance).
+     */
+    static EnergyFunction forName(String name) {
+        switch (name) {
+            case EnergyCalculator.NAME:
+                return new EnergyCalculator();
+            case LuminanceEnergy.NAME:
+                return new LuminanceEnergy();
+            case ForwardEnergy.NAME:
+                return new ForwardEnergy();
+            default:
+                throw new IllegalArgumentException("Unknown energy function: " + name);
+        }
+    }
+}
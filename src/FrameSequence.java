@@ -0,0 +1,195 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Carries the analysis of one frame of an image sequence, such as frames extracted from a video, over to
+ * the next so that consecutive frames of the same size are not carved from scratch.
+ * Set on the {@link ImageResizer} of every frame in order (see {@link ImageResizer#setFrameSequence});
+ * for each pass of a resize, i.e. each buffer shape the carver works on, it keeps:
+ * <ul>
+ *   <li>the pixels and full energy map of the previous frame, so that only the pixels that changed
+ *       since then are recomputed (see {@link EnergyFunction#updateEnergyAfterChange});</li>
+ *   <li>a {@link TemporalSeamFinder} that searches each seam in a band around the same seam of the
+ *       previous frame, which also keeps the seams from jumping between frames.</li>
+ * </ul>
+ * Every {@code keyframeInterval} frames the seams are searched in full again. A sequence replaces the seam
+ * search of the "standard" and "pyramid" methods and always removes one seam per pass. It is not
+ * thread-safe: frames have to be carved one after the other.
+ */
+public class FrameSequence {
+    // Passes kept at a time; a resize changing both dimensions uses two, enlargements beyond twice the width more
+    private static final int MAX_PASSES = 4;
+
+    private final int bandWidth;
+    private final int keyframeInterval;
+    private final List<Pass> passes = new ArrayList<>();
+
+    private long comparedPixels;
+    private long changedPixels;
+    private long frames;
+
+    /**
+     * @param bandWidth        The number of pixels a seam may move on each side between frames (at least 1).
+     * @param keyframeInterval The number of frames between full seam searches (at least 1; 1 searches every frame in full).
+     */
+    public FrameSequence(int bandWidth, int keyframeInterval) {
+        if (bandWidth < 1 || keyframeInterval < 1) {
+            throw new IllegalArgumentException("Invalid sequence parameters: band " + bandWidth + ", keyframes " + keyframeInterval);
+        }
+        this.bandWidth = bandWidth;
+        this.keyframeInterval = keyframeInterval;
+    }
+
+    public int getBandWidth() {
+        return bandWidth;
+    }
+
+    public int getKeyframeInterval() {
+        return keyframeInterval;
+    }
+
+    /**
+     * Returns the number of passes started so far; a frame resized in both dimensions counts twice.
+     */
+    public long getFrames() {
+        return frames;
+    }
+
+    /**
+     * Returns the fraction of the pixels compared with the previous frame that had changed.
+     */
+    public double getChangedRatio() {
+        return comparedPixels == 0 ? 0 : changedPixels / (double) comparedPixels;
+    }
+
+    /**
+     * Returns the fraction of the seams that were found within the band of the previous frame's seam.
+     */
+    public double getGuidedRatio() {
+        long guided = 0;
+        long searched = 0;
+        for (Pass pass : passes) {
+            guided += pass.finder.getGuidedSeams();
+            searched += pass.finder.getSearchedSeams();
+        }
+        return (guided + searched == 0) ? 0 : guided / (double) (guided + searched);
+    }
+
+    /**
+     * Starts a pass of the next frame on the given buffer and returns the seam finder to use for it.
+     */
+    SeamFinder beginPass(PixelBuffer buffer) {
+        Pass pass = pass(buffer);
+        pass.finder.beginFrame(pass.frames % keyframeInterval == 0);
+        pass.frames++;
+        frames++;
+        return pass.finder;
+    }
+
+    /**
+     * Computes the energy map of the buffer of the current pass into the given map. The map kept for the
+     * previous frame is brought up to date for the pixels that changed and copied, and the given function's
+     * state is copied from the instance that keeps it; the first frame, and functions that cannot be
+     * created by name, are computed in full.
+     */
+    double[][] computeEnergy(EnergyFunction function, PixelBuffer buffer, double[][] energy, ForkJoinPool forkJoinPool) {
+        Pass pass = pass(buffer);
+        if (pass.function == null || pass.function.getClass() != function.getClass()) {
+            pass.function = create(function);
+            pass.loaded = false;
+        }
+        if (pass.function == null) {
+            return function.computeEnergy(buffer, energy);
+        }
+        pass.function.setForkJoinPool(forkJoinPool);
+
+        int width = buffer.getWidth();
+        int height = buffer.getHeight();
+        int stride = buffer.getStride();
+        int[] pixels = buffer.getPixels();
+        if (!pass.loaded) {
+            pass.function.computeEnergy(buffer, pass.energy);
+            pass.loaded = true;
+        } else {
+            // 이전 프레임과 달라진 열 범위를 행마다 찾는다
+            int changed = 0;
+            for (int y = 0; y < height; y++) {
+                int row = y * stride;
+                int previous = y * width;
+                int from = 0;
+                while (from < width && pixels[row + from] == pass.pixels[previous + from]) {
+                    from++;
+                }
+                int to = width - 1;
+                while (to > from && pixels[row + to] == pass.pixels[previous + to]) {
+                    to--;
+                }
+                pass.changedFrom[y] = from;
+                pass.changedTo[y] = (from < width) ? to : -1;
+                changed += (from < width) ? to - from + 1 : 0;
+            }
+            comparedPixels += (long) width * height;
+            changedPixels += changed;
+            if (changed > 0) {
+                pass.function.updateEnergyAfterChange(buffer, pass.energy, pass.changedFrom, pass.changedTo);
+            }
+        }
+
+        for (int y = 0; y < height; y++) {
+            System.arraycopy(pixels, y * stride, pass.pixels, y * width, width);
+            System.arraycopy(pass.energy[y], 0, energy[y], 0, width);
+        }
+        function.copyStateFrom(pass.function);
+        return energy;
+    }
+
+    // 버퍼 모양별 패스 상태. 처음 보는 모양이면 가장 오래된 것을 버리고 새로 만든다
+    private Pass pass(PixelBuffer buffer) {
+        for (Pass pass : passes) {
+            if (pass.width == buffer.getWidth() && pass.height == buffer.getHeight()
+                    && pass.energy.length >= buffer.getCapacityHeight() && pass.energy[0].length >= buffer.getStride()) {
+                return pass;
+            }
+        }
+        if (passes.size() == MAX_PASSES) {
+            passes.remove(0);
+        }
+        Pass pass = new Pass(buffer, bandWidth);
+        passes.add(pass);
+        return pass;
+    }
+
+    private static EnergyFunction create(EnergyFunction function) {
+        try {
+            EnergyFunction created = EnergyFunction.forName(function.getName());
+            return (created.getClass() == function.getClass()) ? created : null;
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    // 한 모양의 버퍼에서 이어지는 프레임들의 상태
+    private static class Pass {
+        final int width;
+        final int height;
+        final TemporalSeamFinder finder;
+        final int[] pixels;
+        final double[][] energy;
+        final int[] changedFrom;
+        final int[] changedTo;
+        EnergyFunction function;
+        boolean loaded;
+        long frames;
+
+        Pass(PixelBuffer buffer, int bandWidth) {
+            width = buffer.getWidth();
+            height = buffer.getHeight();
+            finder = new TemporalSeamFinder(bandWidth);
+            pixels = new int[width * height];
+            energy = new double[buffer.getCapacityHeight()][buffer.getStride()];
+            changedFrom = new int[height];
+            changedTo = new int[height];
+        }
+    }
+}
@@ -3,14 +3,30 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.datatransfer.DataFlavor;
 import java.awt.datatransfer.Transferable;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.util.List;
 import java.util.function.Consumer;
 
 public class ImagePanel extends JPanel {
+    // 가장자리로 인식하는 마우스 거리 (픽셀)
+    private static final int EDGE_MARGIN = 6;
+
     private JLabel imageLabel;
     private Consumer<BufferedImage> imageLoadListener;
+    private TriConsumer<Integer, Integer, Boolean> resizeDragListener;
+
+    // 드래그 상태
+    private int dragCursor = Cursor.DEFAULT_CURSOR;
+    private int dragStartX;
+    private int dragStartY;
+    private int dragStartWidth;
+    private int dragStartHeight;
+    // 드래그하지 않는 쪽 크기로 쓸 원본 이미지 크기 (0이면 현재 아이콘 크기)
+    private int originalWidth;
+    private int originalHeight;
 
     public ImagePanel() {
         setLayout(new GridBagLayout());
@@ -30,6 +46,10 @@ public class ImagePanel extends JPanel {
         add(imageLabel, gbc);
 
         setTransferHandler(new ImageTransferHandler());
+
+        EdgeDragHandler dragHandler = new EdgeDragHandler();
+        imageLabel.addMouseListener(dragHandler);
+        imageLabel.addMouseMotionListener(dragHandler);
     }
 
     public void setImage(BufferedImage image) {
@@ -44,6 +64,112 @@ public class ImagePanel extends JPanel {
         repaint();
     }
 
+    // 미리보기 이미지를 지정한 크기로 늘리거나 줄여서 표시한다
+    public void setPreviewImage(BufferedImage image, int width, int height) {
+        imageLabel.setIcon(new ScaledIcon(image, width, height));
+        imageLabel.setText(null);
+        revalidate();
+        repaint();
+    }
+
+    // 드래그는 원본 크기에서 한 방향만 바꾼 크기로 전달한다. 다른 방향으로 변환된 이미지에서 시작해도
+    // 드래그하지 않는 쪽은 원본 크기로 되돌아가므로 원본에 기록한 시임 순서를 그대로 쓸 수 있다
+    public void setOriginalSize(int width, int height) {
+        this.originalWidth = width;
+        this.originalHeight = height;
+    }
+
+    // 이미지 오른쪽/아래 가장자리를 드래그할 때 호출될 리스너 (너비, 높이, 마우스를 놓았는지 여부)
+    public void setResizeDragListener(TriConsumer<Integer, Integer, Boolean> listener) {
+        this.resizeDragListener = listener;
+    }
+
+    // 오른쪽 가장자리는 너비, 아래쪽 가장자리는 높이를 바꾼다
+    private class EdgeDragHandler extends MouseAdapter {
+        @Override
+        public void mouseMoved(MouseEvent e) {
+            if (imageLabel.getIcon() == null || resizeDragListener == null) {
+                return;
+            }
+            int cursor = Cursor.DEFAULT_CURSOR;
+            if (e.getX() >= imageLabel.getWidth() - EDGE_MARGIN) {
+                cursor = Cursor.E_RESIZE_CURSOR;
+            } else if (e.getY() >= imageLabel.getHeight() - EDGE_MARGIN) {
+                cursor = Cursor.S_RESIZE_CURSOR;
+            }
+            imageLabel.setCursor(Cursor.getPredefinedCursor(cursor));
+        }
+
+        @Override
+        public void mousePressed(MouseEvent e) {
+            dragCursor = imageLabel.getCursor().getType();
+            dragStartX = e.getXOnScreen();
+            dragStartY = e.getYOnScreen();
+            Icon icon = imageLabel.getIcon();
+            if (icon != null) {
+                dragStartWidth = icon.getIconWidth();
+                dragStartHeight = icon.getIconHeight();
+            }
+        }
+
+        @Override
+        public void mouseDragged(MouseEvent e) {
+            fireResizeDrag(e, false);
+        }
+
+        @Override
+        public void mouseReleased(MouseEvent e) {
+            fireResizeDrag(e, true);
+            dragCursor = Cursor.DEFAULT_CURSOR;
+        }
+
+        private void fireResizeDrag(MouseEvent e, boolean released) {
+            if (resizeDragListener == null || dragCursor == Cursor.DEFAULT_CURSOR) {
+                return;
+            }
+            // 화면 좌표 기준 이동량을 쓰므로 레이아웃이 이미지를 가운데 정렬해도 흔들리지 않는다
+            int width = (originalWidth > 0) ? originalWidth : dragStartWidth;
+            int height = (originalHeight > 0) ? originalHeight : dragStartHeight;
+            if (dragCursor == Cursor.E_RESIZE_CURSOR) {
+                width = Math.max(1, dragStartWidth + e.getXOnScreen() - dragStartX);
+            } else {
+                height = Math.max(1, dragStartHeight + e.getYOnScreen() - dragStartY);
+            }
+            resizeDragListener.accept(width, height, released);
+        }
+    }
+
+    // 이미지를 아이콘 크기에 맞춰 그리는 아이콘
+    private static class ScaledIcon implements Icon {
+        private final BufferedImage image;
+        private final int width;
+        private final int height;
+
+        ScaledIcon(BufferedImage image, int width, int height) {
+            this.image = image;
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public void paintIcon(Component c, Graphics g, int x, int y) {
+            Graphics2D g2 = (Graphics2D) g.create();
+            g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g2.drawImage(image, x, y, width, height, null);
+            g2.dispose();
+        }
+
+        @Override
+        public int getIconWidth() {
+            return width;
+        }
+
+        @Override
+        public int getIconHeight() {
+            return height;
+        }
+    }
+
     // 드래그 앤 드롭을 위한 TransferHandler 구현
     private class ImageTransferHandler extends TransferHandler {
         @Override
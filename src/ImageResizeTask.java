@@ -10,6 +10,7 @@ public class ImageResizeTask extends SwingWorker<BufferedImage, Integer> {
     private String method;
     private Consumer<BufferedImage> doneCallback;
     private ControlPanel controlPanel;
+    private volatile ResizeStatistics statistics;
 
     public ImageResizeTask(ImageResizer resizer, int targetWidth, int targetHeight, String method, Consumer<BufferedImage> doneCallback, ControlPanel controlPanel) {
         this.resizer = resizer;
@@ -22,10 +23,17 @@ public class ImageResizeTask extends SwingWorker<BufferedImage, Integer> {
 
     @Override
     protected BufferedImage doInBackground() throws Exception {
-        return resizer.resize(targetWidth, targetHeight, method, progress -> {
+        BufferedImage result = resizer.resize(targetWidth, targetHeight, method, progress -> {
             setProgress(progress);
             publish(progress);
         });
+        statistics = resizer.getLastStatistics();
+        return result;
+    }
+
+    // 변환이 끝난 뒤 단계별 시간 등 통계를 읽을 수 있다 (끝나기 전에는 null)
+    public ResizeStatistics getStatistics() {
+        return statistics;
     }
 
     @Override
@@ -37,6 +45,10 @@ public class ImageResizeTask extends SwingWorker<BufferedImage, Integer> {
 
     @Override
     protected void done() {
+        // 새 요청으로 대체되어 취소된 작업은 결과도 UI 갱신도 없이 끝난다
+        if (isCancelled()) {
+            return;
+        }
         try {
             BufferedImage resultImage = get();
             if (doneCallback != null) {
@@ -1,18 +1,221 @@
 import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
 public class ImageResizer {
+    // 시임 인덱스를 기록할 때 요청한 너비보다 더 깎아 두는 열 수. 근처 너비로 다시 바꿀 때도 시임 탐색이 필요 없다
+    static final int SEAM_INDEX_MARGIN = 16;
+
     private BufferedImage image;
     private SeamCarver seamCarver;
+    private volatile SeamIndex seamIndex;
+    private boolean keepSeamIndex;
+    private int seamIndexMinWidth;
+    private ResizeListener resizeListener;
+    private volatile ResizeStatistics lastStatistics;
+    private WorkspacePool workspacePool;
+    private ResizeCache resizeCache;
+    private String contentHash;
+    private File seamMapFile;
+    private IOException seamMapError;
 
     public ImageResizer(BufferedImage image) {
         this.image = image;
         this.seamCarver = new SeamCarver();
     }
 
-    public BufferedImage resize(int targetWidth, int targetHeight, String method, Consumer<Integer> progressCallback) {
+    /**
+     * Runs energy and seam computations of large images on the given pool.
+     * Small images and a {@code null} pool use the serial path; both produce the same seams.
+     */
+    public void setForkJoinPool(ForkJoinPool forkJoinPool) {
+        seamCarver.setForkJoinPool(forkJoinPool);
+    }
+
+    /**
+     * Sets the band searched around the coarse path by the "pyramid" method, in pixels on each side.
+     * Wider bands find seams closer to the "standard" method at a higher cost.
+     */
+    public void setPyramidBandWidth(int bandWidth) {
+        seamCarver.setPyramidBandWidth(bandWidth);
+    }
+
+    /**
+     * Sets the downscale factor of the coarse level searched by the "pyramid" method.
+     */
+    public void setPyramidFactor(int factor) {
+        seamCarver.setPyramidFactor(factor);
+    }
+
+    /**
+     * Sets the energy function of the "standard" and "pyramid" methods (dual-gradient by default).
+     * The instance keeps per-image state and must not be shared with other resizers. A seam index
+     * recorded with the previous function is discarded; cached results and seam maps are kept apart
+     * by the function's name and version.
+     */
+    public synchronized void setEnergyFunction(EnergyFunction energyFunction) {
+        seamCarver.setEnergyFunction(energyFunction);
+        seamIndex = null;
+    }
+
+    /**
+     * Lets "standard" reductions remove up to the given number of disjoint seams per cost-table pass
+     * instead of one, which is approximate but needs that many times fewer passes; 1 (the default) is exact.
+     * Enlargements are not affected. Since a seam index or seam map records the exact removal order, such
+     * reductions neither use nor record one, so the results cached under this setting are always approximate.
+     */
+    public void setSeamsPerPass(int seamsPerPass) {
+        seamCarver.setSeamsPerPass(seamsPerPass);
+    }
+
+    /**
+     * Carves this image as the next frame of the given sequence: energy is only recomputed where the
+     * pixels differ from the previous frame, and seams are searched around the previous frame's seams
+     * (see {@link FrameSequence}). Set the same sequence on the resizer of every frame, in order, and
+     * resize all frames to the same size. Since the seams then depend on the earlier frames, standard and
+     * pyramid resizes of a frame neither use nor fill the result cache, the seam index or the seam map.
+     */
+    public void setFrameSequence(FrameSequence frameSequence) {
+        seamCarver.setFrameSequence(frameSequence);
+    }
+
+    /**
+     * When enabled, a standard width change records the image's seam removal order (see {@link SeamIndex})
+     * down to {@value #SEAM_INDEX_MARGIN} columns narrower than the requested width (for an enlargement, as
+     * many seams as it inserts plus that margin), which costs that many extra seams once. Later standard
+     * resizes to any width inside the recorded range then skip the seam search entirely; a width outside
+     * it records the order again, down to that width plus the margin.
+     */
+    public void setKeepSeamIndex(boolean keepSeamIndex) {
+        this.keepSeamIndex = keepSeamIndex;
+    }
+
+    /**
+     * Makes every removal order recorded by {@link #setKeepSeamIndex} reach down to at least the given
+     * width, e.g. the narrowest of several widths known in advance, so that it is recorded only once.
+     * 0 (the default) records just the requested width plus the margin.
+     */
+    public void setSeamIndexMinWidth(int seamIndexMinWidth) {
+        this.seamIndexMinWidth = Math.max(seamIndexMinWidth, 0);
+    }
+
+    /**
+     * Takes the working memory of standard and pyramid resizes from the given pool and returns it
+     * afterwards, so consecutive jobs of similar size allocate nothing per seam. Without a pool every
+     * resize uses a fresh workspace.
+     */
+    public void setWorkspacePool(WorkspacePool workspacePool) {
+        this.workspacePool = workspacePool;
+    }
+
+    /**
+     * Looks up finished results and seam removal orders of this image's content in the given cache
+     * before carving, and stores new ones in it. The content hash is computed on the first resize and
+     * assumes the image is not modified afterwards.
+     */
+    public void setResizeCache(ResizeCache resizeCache) {
+        this.resizeCache = resizeCache;
+    }
+
+    /**
+     * Uses the seam map stored in the given file (see {@link SeamMapFile}) for standard width changes,
+     * if it was written for this image's content and the current energy function; otherwise the file
+     * is ignored and the seams are searched as usual. The file is read on the first width change, or by
+     * {@link #loadSeamMap}; a file that cannot be read is ignored the same way (see {@link #getSeamMapError}).
+     */
+    public void setSeamMapFile(File seamMapFile) {
+        this.seamMapFile = seamMapFile;
+        this.seamMapError = null;
+    }
+
+    /**
+     * Reads the seam map file now instead of on the first width change.
+     *
+     * @return Whether a seam index is available for this image, from the file or from earlier resizes.
+     */
+    public synchronized boolean loadSeamMap() {
+        SeamIndex seamIndex = this.seamIndex;
+        if (seamIndex == null && seamMapFile != null) {
+            seamIndex = this.seamIndex = readSeamMap();
+            seamMapFile = null;
+        }
+        return seamIndex != null;
+    }
+
+    /**
+     * Returns why the seam map file could not be read, e.g. because it is truncated or corrupt, or
+     * {@code null} when it was read or not read yet.
+     */
+    public IOException getSeamMapError() {
+        return seamMapError;
+    }
+
+    /**
+     * Stores the current seam index in a seam map file, e.g. after {@link #buildSeamIndex}.
+     */
+    public synchronized void writeSeamMap(File file) throws IOException {
+        SeamIndex seamIndex = this.seamIndex;
+        if (seamIndex == null) {
+            throw new IllegalStateException("No seam index to write");
+        }
+        SeamMapFile.write(file, seamIndex, getContentHash(), seamCarver.getEnergyName(), seamCarver.getEnergyVersion());
+    }
+
+    /**
+     * Receives per-seam latencies and the final statistics of every resize.
+     */
+    public void setResizeListener(ResizeListener resizeListener) {
+        this.resizeListener = resizeListener;
+    }
+
+    /**
+     * Returns the statistics of the last completed resize, or {@code null}.
+     */
+    public ResizeStatistics getLastStatistics() {
+        return lastStatistics;
+    }
+
+    public SeamIndex getSeamIndex() {
+        return seamIndex;
+    }
+
+    /**
+     * Uses a previously recorded removal order for standard width changes of this image.
+     */
+    public void setSeamIndex(SeamIndex seamIndex) {
+        if (seamIndex != null && (seamIndex.getWidth() != image.getWidth() || seamIndex.getHeight() != image.getHeight())) {
+            throw new IllegalArgumentException("Seam index does not match the image size");
+        }
+        this.seamIndex = seamIndex;
+    }
+
+    /**
+     * Carves the image once down to {@code minWidth} and keeps the resulting seam index.
+     */
+    public synchronized SeamIndex buildSeamIndex(int minWidth, Consumer<Integer> progressCallback) {
+        SeamIndex seamIndex = seamCarver.buildSeamIndex(image, minWidth, progressCallback);
+        this.seamIndex = seamIndex;
+        if (resizeCache != null) {
+            resizeCache.putSeamIndex(getContentHash(), seamCarver.getEnergyName(), seamCarver.getEnergyVersion(), seamIndex);
+        }
+        return seamIndex;
+    }
+
+    /**
+     * Resizes the image with the given method ("standard", "pyramid" or "forced").
+     * The resize stops between seams, or every few rows of a long DP pass, once the calling thread
+     * is interrupted and then throws a {@link java.util.concurrent.CancellationException}.
+     * Calls on the same resizer run one at a time, so a superseded resize finishes cancelling before
+     * the next one starts.
+     */
+    public synchronized BufferedImage resize(int targetWidth, int targetHeight, String method, Consumer<Integer> progressCallback) {
         BufferedImage tempImage = image;
+        // setSeamIndex는 동기화 없이 다른 스레드(예: EDT)에서 불릴 수 있으므로 필드는 한 번만 읽고 이 값을 쓴다.
+        // 새로 읽거나 기록한 인덱스는 필드에도 남긴다
+        SeamIndex seamIndex = this.seamIndex;
 
         int currentWidth = tempImage.getWidth();
         int currentHeight = tempImage.getHeight();
@@ -20,55 +223,225 @@ public class ImageResizer {
         int deltaWidth = targetWidth - currentWidth;
         int deltaHeight = targetHeight - currentHeight;
 
-        int totalSteps = Math.abs(deltaWidth) + Math.abs(deltaHeight);
-        if (totalSteps == 0) {
+        long resizeStart = System.nanoTime();
+        ResizeEvent event = new ResizeEvent();
+        event.begin();
+        ResizeStatistics statistics = new ResizeStatistics(method, currentWidth, currentHeight, targetWidth, targetHeight);
+        statistics.setListener(resizeListener);
+        seamCarver.setStatistics(statistics);
+
+        if (deltaWidth == 0 && deltaHeight == 0) {
             progressCallback.accept(100);
+            finishStatistics(statistics, event, resizeStart);
             return tempImage;
         }
 
-        AtomicInteger completedSteps = new AtomicInteger(0);
+        // 시퀀스의 프레임은 앞 프레임에 따라 결과가 달라지므로 표준/피라미드 방식은 캐시와 시임 인덱스를 쓰지 않는다
+        boolean standard = method.equals("standard");
+        boolean sequence = seamCarver.getFrameSequence() != null && (standard || method.equals("pyramid"));
+        ResizeCache resizeCache = sequence ? null : this.resizeCache;
 
-        // Width adjustment
-        if (deltaWidth != 0) {
-            if (method.equals("standard")) {
-                tempImage = seamCarver.resizeWidthStandard(tempImage, deltaWidth, progress -> {
-                    int newCompleted = completedSteps.addAndGet(progress);
-                    double rawPercentage = (newCompleted / (double) totalSteps) * 100;
-                    int percentage = (int) Math.min(rawPercentage, 100);
-                    progressCallback.accept(percentage);
-                });
-            } else {
-                tempImage = seamCarver.resizeWidthForced(tempImage, deltaWidth, progress -> {
-                    int newCompleted = completedSteps.addAndGet(progress);
-                    double rawPercentage = (newCompleted / (double) totalSteps) * 100;
-                    int percentage = (int) Math.min(rawPercentage, 100);
-                    progressCallback.accept(percentage);
-                });
+        // 같은 내용을 같은 크기와 방식으로 이미 변환했다면 캐시된 결과를 그대로 쓴다
+        String cacheMethod = method.equals("pyramid")
+                ? method + "/" + seamCarver.getPyramidFactor() + "/" + seamCarver.getPyramidBandWidth()
+                : (method.equals("standard") && seamCarver.getSeamsPerPass() > 1)
+                ? method + "/" + seamCarver.getSeamsPerPass()
+                : method;
+        // 강제 방식은 에너지를 계산하지 않으므로 에너지 함수와 관계없이 같은 결과를 쓴다
+        String cacheEnergy = method.equals("forced") ? null : seamCarver.getEnergyName();
+        if (resizeCache != null) {
+            long start = System.nanoTime();
+            String hash = getContentHash();
+            statistics.addPhase(ResizeStatistics.Phase.CONVERSION, System.nanoTime() - start);
+            BufferedImage cached = resizeCache.getResult(hash, cacheEnergy, seamCarver.getEnergyVersion(), targetWidth, targetHeight, cacheMethod);
+            if (cached != null) {
+                statistics.setCacheHit(true);
+                progressCallback.accept(100);
+                finishStatistics(statistics, event, resizeStart);
+                return cached;
             }
         }
 
-        // Height adjustment
-        if (deltaHeight != 0) {
-            if (method.equals("standard")) {
-                tempImage = seamCarver.resizeHeightStandard(tempImage, deltaHeight, progress -> {
-                    int newCompleted = completedSteps.addAndGet(progress);
-                    double rawPercentage = (newCompleted / (double) totalSteps) * 100;
-                    int percentage = (int) Math.min(rawPercentage, 100);
-                    progressCallback.accept(percentage);
-                });
-            } else {
-                tempImage = seamCarver.resizeHeightForced(tempImage, deltaHeight, progress -> {
-                    int newCompleted = completedSteps.addAndGet(progress);
-                    double rawPercentage = (newCompleted / (double) totalSteps) * 100;
-                    int percentage = (int) Math.min(rawPercentage, 100);
-                    progressCallback.accept(percentage);
-                });
+        // 시임 인덱스로 너비를 맞출 수 있으면 너비 변경에는 시임 탐색이 필요 없다.
+        // 인덱스는 정확한 제거 순서이므로 패스마다 여러 시임을 제거하는 근사 축소에는 쓰지 않는다
+        boolean indexable = standard && !sequence && deltaWidth != 0
+                && (deltaWidth > 0 || seamCarver.getSeamsPerPass() == 1);
+        if (indexable && seamIndex == null && seamMapFile != null) {
+            // 미리 계산해 둔 시임 맵 파일이 이 이미지의 것이면 시임 탐색 없이 너비를 맞춘다
+            long start = System.nanoTime();
+            seamIndex = this.seamIndex = readSeamMap();
+            seamMapFile = null;
+            statistics.addPhase(ResizeStatistics.Phase.CONVERSION, System.nanoTime() - start);
+        }
+        if (indexable && keepSeamIndex && seamIndex == null && resizeCache != null) {
+            seamIndex = this.seamIndex = resizeCache.getSeamIndex(getContentHash(), seamCarver.getEnergyName(), seamCarver.getEnergyVersion());
+        }
+        int indexMinWidth = 0;
+        if (indexable && keepSeamIndex
+                && (seamIndex == null || !seamIndex.supportsWidth(targetWidth))) {
+            // 목표 너비(확대라면 같은 수의 시임)보다 여유분만큼, 최소 너비가 지정되었으면 거기까지 더 분석해 둔다.
+            // 원본 너비 이상을 넣는 확대는 기록할 수 없으므로 그대로 둔다
+            int needed = Math.min(targetWidth, 2 * currentWidth - targetWidth);
+            if (needed >= 1) {
+                int reach = needed - SEAM_INDEX_MARGIN;
+                if (seamIndexMinWidth > 0) {
+                    reach = Math.min(reach, seamIndexMinWidth);
+                }
+                indexMinWidth = Math.max(reach, 1);
+            }
+        }
+        boolean useSeamIndex = indexable
+                && (indexMinWidth > 0 || (seamIndex != null && seamIndex.supportsWidth(targetWidth)));
+
+        int widthSteps = Math.abs(deltaWidth);
+        if (indexMinWidth > 0) {
+            widthSteps = currentWidth - indexMinWidth;
+        } else if (useSeamIndex) {
+            widthSteps = 0;
+        }
+        int totalSteps = widthSteps + Math.abs(deltaHeight);
+
+        AtomicInteger completedSteps = new AtomicInteger(0);
+        Consumer<Integer> stepCallback = progress -> {
+            int newCompleted = completedSteps.addAndGet(progress);
+            double rawPercentage = (newCompleted / (double) totalSteps) * 100;
+            int percentage = (int) Math.min(rawPercentage, 100);
+            progressCallback.accept(percentage);
+        };
+
+        if (standard || method.equals("pyramid")) {
+            // 작업 공간은 변환이 끝나면(취소되어도) 풀에 돌려준다
+            int capacityWidth = currentWidth + Math.max(deltaWidth, 0);
+            int capacityHeight = currentHeight + Math.max(deltaHeight, 0);
+            CarvingWorkspace workspace = (workspacePool != null)
+                    ? workspacePool.acquire(capacityWidth, capacityHeight)
+                    : new CarvingWorkspace(capacityWidth, capacityHeight);
+            seamCarver.setWorkspace(workspace);
+            try {
+                if (standard) {
+                    tempImage = resizeStandard(tempImage, targetWidth, deltaWidth, deltaHeight, useSeamIndex ? seamIndex : null,
+                            indexMinWidth, workspace, statistics, stepCallback);
+                } else {
+                    tempImage = resizePyramid(tempImage, deltaWidth, deltaHeight, workspace, statistics, stepCallback);
+                }
+            } finally {
+                seamCarver.setWorkspace(null);
+                if (workspacePool != null) {
+                    workspacePool.release(workspace);
+                }
+            }
+        } else {
+            // Width adjustment
+            if (deltaWidth != 0) {
+                tempImage = seamCarver.resizeWidthForced(tempImage, deltaWidth, stepCallback);
+            }
+
+            // Height adjustment
+            if (deltaHeight != 0) {
+                tempImage = seamCarver.resizeHeightForced(tempImage, deltaHeight, stepCallback);
             }
         }
 
+        if (resizeCache != null) {
+            resizeCache.putResult(getContentHash(), cacheEnergy, seamCarver.getEnergyVersion(), targetWidth, targetHeight, cacheMethod, tempImage);
+        }
+
         // Ensure progress is set to 100% at the end
         progressCallback.accept(100);
+        finishStatistics(statistics, event, resizeStart);
 
         return tempImage;
     }
+
+    // seamIndex: 너비를 맞출 제거 순서, 시임을 찾아야 하면 null. indexMinWidth가 있으면 거기까지 새로 기록한다
+    private BufferedImage resizeStandard(BufferedImage image, int targetWidth, int deltaWidth, int deltaHeight,
+                                         SeamIndex seamIndex, int indexMinWidth, CarvingWorkspace workspace,
+                                         ResizeStatistics statistics, Consumer<Integer> stepCallback) {
+        PixelBuffer buffer;
+        int capacityHeight = image.getHeight() + Math.max(deltaHeight, 0);
+
+        if (seamIndex != null || indexMinWidth > 0) {
+            // Width adjustment by filtering the original with the recorded removal order
+            if (indexMinWidth > 0) {
+                seamIndex = buildSeamIndex(indexMinWidth, stepCallback);
+            }
+            long start = System.nanoTime();
+            buffer = seamIndex.retargetBuffer(targetWidth, capacityHeight);
+            statistics.addPhase(ResizeStatistics.Phase.CONVERSION, System.nanoTime() - start);
+        } else {
+            // Convert once into a working buffer large enough for both passes
+            long start = System.nanoTime();
+            buffer = workspace.load(image, image.getWidth() + Math.max(deltaWidth, 0), capacityHeight);
+            statistics.addPhase(ResizeStatistics.Phase.CONVERSION, System.nanoTime() - start);
+
+            // Width adjustment
+            if (deltaWidth != 0) {
+                seamCarver.resizeWidthStandard(buffer, deltaWidth, stepCallback);
+            }
+        }
+
+        // Height adjustment
+        if (deltaHeight != 0) {
+            seamCarver.resizeHeightStandard(buffer, deltaHeight, stepCallback);
+        }
+
+        long start = System.nanoTime();
+        BufferedImage result = buffer.toImage();
+        statistics.addPhase(ResizeStatistics.Phase.CONVERSION, System.nanoTime() - start);
+        return result;
+    }
+
+    private BufferedImage resizePyramid(BufferedImage image, int deltaWidth, int deltaHeight, CarvingWorkspace workspace,
+                                        ResizeStatistics statistics, Consumer<Integer> stepCallback) {
+        long start = System.nanoTime();
+        PixelBuffer buffer = workspace.load(image, image.getWidth() + Math.max(deltaWidth, 0),
+                image.getHeight() + Math.max(deltaHeight, 0));
+        statistics.addPhase(ResizeStatistics.Phase.CONVERSION, System.nanoTime() - start);
+
+        // Width adjustment
+        if (deltaWidth != 0) {
+            seamCarver.resizeWidthPyramid(buffer, deltaWidth, stepCallback);
+        }
+
+        // Height adjustment
+        if (deltaHeight != 0) {
+            seamCarver.resizeHeightPyramid(buffer, deltaHeight, stepCallback);
+        }
+
+        start = System.nanoTime();
+        BufferedImage result = buffer.toImage();
+        statistics.addPhase(ResizeStatistics.Phase.CONVERSION, System.nanoTime() - start);
+        return result;
+    }
+
+    private SeamIndex readSeamMap() {
+        try {
+            return SeamMapFile.read(seamMapFile, image, getContentHash(), seamCarver.getEnergyName(), seamCarver.getEnergyVersion());
+        } catch (IOException ex) {
+            // 읽을 수 없는 시임 맵은 없는 것으로 치고 평소처럼 시임을 찾는다
+            seamMapError = ex;
+            return null;
+        }
+    }
+
+    // 원본 내용의 해시는 처음 필요할 때 한 번만 계산한다
+    private String getContentHash() {
+        if (contentHash == null) {
+            contentHash = ResizeCache.contentHash(image);
+        }
+        return contentHash;
+    }
+
+    private void finishStatistics(ResizeStatistics statistics, ResizeEvent event, long resizeStart) {
+        seamCarver.setStatistics(null);
+        statistics.setTotalNanos(System.nanoTime() - resizeStart);
+        if (event.shouldCommit()) {
+            event.set(statistics);
+            event.commit();
+        }
+        lastStatistics = statistics;
+        if (resizeListener != null) {
+            resizeListener.resizeCompleted(statistics);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,183 @@
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Integer Sobel gradient magnitude ({@code |Gx| + |Gy|}) on an 8-bit luminance plane, with the borders
+ * replicated. The plane is derived from the pixels once per pass and afterwards compacted along with
+ * the removed seams like the energy map, so each recomputed pixel only reads nine bytes instead of
+ * unpacking the RGB channels of its neighbours. Keeps the plane between calls and is not thread-safe.
+ */
+public class LuminanceEnergy implements EnergyFunction {
+    static final String NAME = "luminance";
+
+    // Images smaller than this are always processed on the calling thread
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+    // Pixels handed to a single fork/join task
+    private static final int PARALLEL_GRAIN = 1 << 14;
+
+    private ForkJoinPool forkJoinPool;
+    // Luma of every pixel as an unsigned byte, laid out like the energy map
+    byte[][] luminance;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public int getVersion() {
+        return 1;
+    }
+
+    @Override
+    public void setForkJoinPool(ForkJoinPool forkJoinPool) {
+        this.forkJoinPool = forkJoinPool;
+    }
+
+    @Override
+    public double[][] computeEnergy(PixelBuffer buffer, double[][] energy) {
+        if (energy.length < buffer.getCapacityHeight() || energy[0].length < buffer.getStride()) {
+            throw new IllegalArgumentException("Energy map is smaller than the buffer capacity");
+        }
+        int width = buffer.getWidth();
+        int height = buffer.getHeight();
+        int stride = buffer.getStride();
+        int[] pixels = buffer.getPixels();
+        ensureCapacity(buffer.getCapacityHeight(), stride);
+
+        ForkJoinPool pool = (width * height >= PARALLEL_THRESHOLD) ? forkJoinPool : null;
+        int grain = Math.max(PARALLEL_GRAIN / width, 1);
+        ParallelRange.forEach(pool, 0, height, grain, (fromRow, toRow) -> {
+            for (int y = fromRow; y < toRow; y++) {
+                byte[] row = luminance[y];
+                int offset = y * stride;
+                for (int x = 0; x < width; x++) {
+                    row[x] = (byte) luma(pixels[offset + x]);
+                }
+            }
+        });
+        // 에너지는 위아래 행의 휘도를 읽으므로 평면이 모두 채워진 뒤에 계산한다
+        ParallelRange.forEach(pool, 0, height, grain, (fromRow, toRow) -> {
+            for (int y = fromRow; y < toRow; y++) {
+                computeRow(energy, y, 0, width - 1, width, height);
+            }
+        });
+
+        return energy;
+    }
+
+    @Override
+    public void updateEnergyAfterVerticalRemoval(PixelBuffer buffer, double[][] energy, int[] seam) {
+        int width = buffer.getWidth();
+        int height = buffer.getHeight();
+
+        // The luminance of the surviving pixels does not change; it only moves with them
+        for (int y = 0; y < height; y++) {
+            int s = seam[y];
+            System.arraycopy(luminance[y], s + 1, luminance[y], s, width - s);
+            System.arraycopy(energy[y], s + 1, energy[y], s, width - s);
+        }
+
+        for (int y = 0; y < height; y++) {
+            int s = seam[y];
+            int sUp = seam[(y == 0) ? height - 1 : y - 1];
+            int sDown = seam[(y == height - 1) ? 0 : y + 1];
+
+            // Pixels with a neighbour on the other side of the seam in this row or the rows next to it
+            int from = Math.max(Math.min(s, Math.min(sUp, sDown)) - 1, 0);
+            int to = Math.min(Math.max(s, Math.max(sUp, sDown)), width - 1);
+            computeRow(energy, y, from, to, width, height);
+        }
+    }
+
+    /**
+     * Updates the luminance of the changed pixels, then recomputes each row over one span covering the
+     * changes in it and in the rows above and below, widened by the Sobel neighbourhood.
+     */
+    @Override
+    public void updateEnergyAfterChange(PixelBuffer buffer, double[][] energy, int[] changedFrom, int[] changedTo) {
+        int width = buffer.getWidth();
+        int height = buffer.getHeight();
+        int stride = buffer.getStride();
+        int[] pixels = buffer.getPixels();
+
+        for (int y = 0; y < height; y++) {
+            byte[] row = luminance[y];
+            int offset = y * stride;
+            for (int x = changedFrom[y]; x <= changedTo[y]; x++) {
+                row[x] = (byte) luma(pixels[offset + x]);
+            }
+        }
+
+        for (int y = 0; y < height; y++) {
+            int from = width;
+            int to = -1;
+            for (int row = Math.max(y - 1, 0); row <= Math.min(y + 1, height - 1); row++) {
+                if (changedFrom[row] <= changedTo[row]) {
+                    from = Math.min(from, changedFrom[row] - 1);
+                    to = Math.max(to, changedTo[row] + 1);
+                }
+            }
+            if (from <= to) {
+                computeRow(energy, y, Math.max(from, 0), Math.min(to, width - 1), width, height);
+            }
+        }
+    }
+
+    @Override
+    public void copyStateFrom(EnergyFunction other) {
+        byte[][] source = ((LuminanceEnergy) other).luminance;
+        ensureCapacity(source.length, source[0].length);
+        for (int y = 0; y < source.length; y++) {
+            System.arraycopy(source[y], 0, luminance[y], 0, source[y].length);
+        }
+    }
+
+    @Override
+    public long getSizeInBytes() {
+        return (luminance == null) ? 0 : (long) luminance.length * luminance[0].length;
+    }
+
+    // Grows the planes to at least the given shape; like the energy map they are only reallocated when too small
+    void ensureCapacity(int rows, int columns) {
+        if (luminance == null || luminance.length < rows || luminance[0].length < columns) {
+            luminance = new byte[rows][columns];
+        }
+    }
+
+    // Computes cells [from, to] of a row from the luminance plane; safe to run on different rows concurrently
+    void computeRow(double[][] energy, int y, int from, int to, int width, int height) {
+        byte[] up = luminance[Math.max(y - 1, 0)];
+        byte[] row = luminance[y];
+        byte[] down = luminance[Math.min(y + 1, height - 1)];
+        double[] energyRow = energy[y];
+
+        if (from == 0) {
+            energyRow[0] = sobel(up, row, down, 0, 0, Math.min(1, width - 1));
+            from = 1;
+        }
+        // 안쪽 열은 이웃이 항상 행 안에 있으므로 경계 검사 없이 계산한다
+        int last = Math.min(to, width - 2);
+        for (int x = from; x <= last; x++) {
+            energyRow[x] = sobel(up, row, down, x, x - 1, x + 1);
+        }
+        if (to == width - 1 && width > 1) {
+            energyRow[width - 1] = sobel(up, row, down, width - 1, width - 2, width - 1);
+        }
+    }
+
+    private static int sobel(byte[] up, byte[] row, byte[] down, int x, int left, int right) {
+        int upLeft = up[left] & 0xff;
+        int upRight = up[right] & 0xff;
+        int downLeft = down[left] & 0xff;
+        int downRight = down[right] & 0xff;
+
+        int gradientX = (upRight + 2 * (row[right] & 0xff) + downRight) - (upLeft + 2 * (row[left] & 0xff) + downLeft);
+        int gradientY = (downLeft + 2 * (down[x] & 0xff) + downRight) - (upLeft + 2 * (up[x] & 0xff) + upRight);
+        return Math.abs(gradientX) + Math.abs(gradientY);
+    }
+
+    // ITU-R BT.601 luma in 8-bit fixed point
+    static int luma(int rgb) {
+        return (77 * ((rgb >> 16) & 0xff) + 150 * ((rgb >> 8) & 0xff) + 29 * (rgb & 0xff)) >> 8;
+    }
+}
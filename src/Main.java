@@ -1,13 +1,25 @@
 import javax.swing.*;
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.util.concurrent.ForkJoinPool;
 
 
 public class Main extends JFrame {
+    // 같은 이미지를 같은 크기로 다시 변환하면 캐시된 결과를 바로 보여준다
+    private static final long RESIZE_CACHE_BYTES = 256L << 20;
+
     private ImagePanel imagePanel;
     private ControlPanel controlPanel;
     private BufferedImage originalImage;
     private BufferedImage resizedImage;
+    private ImageResizer resizer;
+    private RetargetPreview retargetPreview;
+    private ImageResizeTask resizeTask;
+    private SwingWorker<Void, Void> previewWorker;
+    // 방향별 원본 해상도 시임 순서 기록 (그 방향의 첫 드래그에서 시작)
+    private SwingWorker<SeamIndex, Void> widthIndexWorker;
+    private SwingWorker<SeamIndex, Void> heightIndexWorker;
+    private final ResizeCache resizeCache = new ResizeCache(RESIZE_CACHE_BYTES);
 
     public Main() {
         setTitle("Seam Carving Resizer");
@@ -34,7 +46,10 @@ public class Main extends JFrame {
         controlPanel.setImageLoadListener(image -> {
             originalImage = image;
             resizedImage = image;
+            resizer = createResizer(image);
+            startRetargetPreview(image);
             imagePanel.setImage(image);
+            imagePanel.setOriginalSize(image.getWidth(), image.getHeight());
             // ControlPanel의 너비와 높이 필드를 업데이트
             controlPanel.updateImageInfo(image.getWidth(), image.getHeight());
         });
@@ -43,27 +58,143 @@ public class Main extends JFrame {
         imagePanel.setImageLoadListener(image -> {
             originalImage = image;
             resizedImage = image;
+            resizer = createResizer(image);
+            startRetargetPreview(image);
+            imagePanel.setOriginalSize(image.getWidth(), image.getHeight());
             // ControlPanel의 너비와 높이 필드를 업데이트
             controlPanel.updateImageInfo(image.getWidth(), image.getHeight());
         });
 
         // 이미지 변환 시 이벤트 처리
         controlPanel.setImageResizeListener((width, height, method) -> {
-            ImageResizer resizer = new ImageResizer(originalImage);
+            // 진행 중인 변환은 취소하고 새 요청으로 대체
+            cancelResize();
             ImageResizeTask task = new ImageResizeTask(resizer, width, height, method, resizedImage -> {
                 this.resizedImage = resizedImage;
                 imagePanel.setImage(resizedImage);
                 // 변환 완료 후 버튼 활성화
                 controlPanel.enableButtons();
             }, controlPanel);
+            resizeTask = task;
             task.execute();
         });
 
+        // 이미지 가장자리 드래그: 드래그 중에는 저해상도 미리보기, 놓으면 원본 해상도로 변환
+        imagePanel.setResizeDragListener((width, height, released) -> {
+            RetargetPreview preview = retargetPreview;
+            if (preview == null) {
+                return;
+            }
+            controlPanel.setTargetSize(width, height);
+            if (!released) {
+                // 원본 해상도 순서는 드래그하는 방향만, 처음 드래그할 때 한 번 기록한다
+                startFullIndex(preview, width == originalImage.getWidth() && height != originalImage.getHeight());
+                imagePanel.setPreviewImage(preview.preview(width, height), width, height);
+                return;
+            }
+            BufferedImage result = preview.render(width, height);
+            if (result != null) {
+                cancelResize();
+                resizedImage = result;
+                imagePanel.setImage(result);
+                controlPanel.enableButtons();
+            } else {
+                // 분석이 끝나지 않았거나 두 방향이 모두 바뀐 경우 일반 시임 카빙으로 처리
+                controlPanel.requestResize("standard");
+            }
+        });
+
         pack();
         setLocationRelativeTo(null);
         setVisible(true);
     }
 
+    // 작업 스레드를 인터럽트하면 SeamCarver가 다음 시임(또는 DP 몇 행) 안에 멈춘다
+    private void cancelResize() {
+        if (resizeTask != null && !resizeTask.isDone()) {
+            resizeTask.cancel(true);
+        }
+        resizeTask = null;
+    }
+
+    // 같은 이미지를 여러 크기로 바꿀 때 시임 분석을 재사용하도록 이미지마다 하나만 만든다
+    private ImageResizer createResizer(BufferedImage image) {
+        ImageResizer imageResizer = new ImageResizer(image);
+        imageResizer.setForkJoinPool(ForkJoinPool.commonPool());
+        imageResizer.setKeepSeamIndex(true);
+        imageResizer.setResizeCache(resizeCache);
+        return imageResizer;
+    }
+
+    // 드래그 미리보기에 쓸 저해상도 시임 순서를 백그라운드에서 기록한다
+    private void startRetargetPreview(BufferedImage image) {
+        // 이전 이미지의 변환과 분석은 더 이상 필요 없다
+        cancelResize();
+        cancelWorker(previewWorker);
+        cancelWorker(widthIndexWorker);
+        cancelWorker(heightIndexWorker);
+        widthIndexWorker = null;
+        heightIndexWorker = null;
+
+        RetargetPreview preview = new RetargetPreview(image);
+        preview.setForkJoinPool(ForkJoinPool.commonPool());
+        retargetPreview = preview;
+
+        previewWorker = new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() {
+                preview.buildPreviewIndices();
+                return null;
+            }
+        };
+        previewWorker.execute();
+    }
+
+    // 놓았을 때 바로 원본 해상도로 그릴 수 있도록 드래그하는 방향의 시임 순서를 백그라운드에서 기록한다
+    private void startFullIndex(RetargetPreview preview, boolean height) {
+        if ((height ? heightIndexWorker : widthIndexWorker) != null) {
+            return;
+        }
+        BufferedImage image = originalImage;
+        SwingWorker<SeamIndex, Void> worker = new SwingWorker<SeamIndex, Void>() {
+            @Override
+            protected SeamIndex doInBackground() {
+                return preview.buildFullIndex(height);
+            }
+
+            @Override
+            protected void done() {
+                // 같은 이미지라면 입력한 크기로 변환할 때도 기록한 시임 순서를 재사용한다.
+                // 변환이 목표 너비 근처까지만 기록해 두었다면 미리보기의 더 깊은 순서로 바꾼다
+                if (height || isCancelled() || retargetPreview != preview || originalImage != image) {
+                    return;
+                }
+                SeamIndex full;
+                try {
+                    full = get();
+                } catch (Exception e) {
+                    return;
+                }
+                SeamIndex current = resizer.getSeamIndex();
+                if (current == null || current.getMinWidth() > full.getMinWidth()) {
+                    resizer.setSeamIndex(full);
+                }
+            }
+        };
+        if (height) {
+            heightIndexWorker = worker;
+        } else {
+            widthIndexWorker = worker;
+        }
+        worker.execute();
+    }
+
+    private static void cancelWorker(SwingWorker<?, ?> worker) {
+        if (worker != null && !worker.isDone()) {
+            worker.cancel(true);
+        }
+    }
+
     public static void main(String[] args) {
         SwingUtilities.invokeLater(Main::new);
     }
@@ -0,0 +1,119 @@
+import java.io.Closeable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Owner of native memory used by one carving job: direct buffers allocated here, and mapped buffers
+ * registered here, are released together by {@link #close()} instead of whenever the garbage collector
+ * gets to them. The arena is confined to the thread that created it; buffers must not be used after
+ * it is closed, so they should only be handed out to code that lives no longer than the job.
+ *
+ * <p>Only the bands of {@link OutOfCoreCarver} live here. The in-memory carver's {@link PixelBuffer} and
+ * {@link CarvingWorkspace} stay on the heap, since the energy, seam search and row kernels all work on
+ * plain arrays.
+ *
+ * <p>Releasing a {@link ByteBuffer} early has no public API before {@code java.lang.foreign}, so
+ * {@link #close()} calls {@code sun.misc.Unsafe.invokeCleaner} through reflection. That class comes from
+ * the {@code jdk.unsupported} module, which class path applications read by default; when it is missing
+ * or the call is refused, {@link #close()} only drops the arena's references and the native memory is
+ * freed whenever the garbage collector gets to the buffers, as without an arena.
+ */
+class OffHeapArena implements Closeable {
+    // sun.misc.Unsafe.invokeCleaner from jdk.unsupported, or null when unavailable (buffers are then left to the collector)
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            unsafe = null;
+            invokeCleaner = null;
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    private final Thread owner = Thread.currentThread();
+    private final List<ByteBuffer> buffers = new ArrayList<>();
+    private long allocatedBytes;
+    private boolean open = true;
+
+    /**
+     * Allocates zeroed native memory in native byte order.
+     *
+     * @param bytes At most {@link Integer#MAX_VALUE} bytes.
+     */
+    public ByteBuffer allocate(long bytes) {
+        checkAccess();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(Math.toIntExact(bytes)).order(ByteOrder.nativeOrder());
+        buffers.add(buffer);
+        allocatedBytes += bytes;
+        return buffer;
+    }
+
+    /**
+     * Releases the given direct or mapped buffer along with the arena.
+     */
+    public <T extends ByteBuffer> T register(T buffer) {
+        checkAccess();
+        if (!buffer.isDirect()) {
+            throw new IllegalArgumentException("Not a direct buffer");
+        }
+        buffers.add(buffer);
+        allocatedBytes += buffer.capacity();
+        return buffer;
+    }
+
+    public boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * Returns the number of bytes allocated or registered so far.
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * Releases every buffer at once; closing an already closed arena does nothing.
+     */
+    @Override
+    public void close() {
+        if (!open) {
+            return;
+        }
+        checkAccess();
+        open = false;
+        if (INVOKE_CLEANER != null) {
+            for (ByteBuffer buffer : buffers) {
+                try {
+                    INVOKE_CLEANER.invoke(UNSAFE, buffer);
+                } catch (ReflectiveOperationException ex) {
+                    // Left to the garbage collector
+                }
+            }
+        }
+        buffers.clear();
+    }
+
+    private void checkAccess() {
+        if (!open) {
+            throw new IllegalStateException("Arena already closed");
+        }
+        if (Thread.currentThread() != owner) {
+            throw new IllegalStateException("Arena is confined to " + owner.getName());
+        }
+    }
+}
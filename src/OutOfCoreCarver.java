@@ -0,0 +1,728 @@
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Image;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
+import java.awt.image.WritableRaster;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.Vector;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
+
+/**
+ * Seam carving for images too large to hold in the heap.
+ * Pixels live in a memory-mapped scratch file, mapped in horizontal bands of at most
+ * {@link #setBandBytes band bytes} each. Every seam is found with one forward pass that computes the
+ * dual-gradient energy row by row from a three-row window and keeps only two rows of cumulative costs,
+ * spilling one byte of backtrack offset per pixel to a second mapped file; a backward pass then
+ * follows the offsets from the bottom row up and compacts each row as it goes.
+ * The heap holds a few rows of the image and nothing proportional to its height, while the operating
+ * system pages the mapped bands in and out as needed.
+ *
+ * <p>The seams are the same as the standard method's, at the cost of a full pass over the file per
+ * seam instead of incremental updates. Only reductions are supported; height reductions run on a
+ * transposed copy of the file, like {@link SeamCarver} does in memory.
+ *
+ * <p>Without a scratch directory the same bands are kept in off-heap memory instead, for images that
+ * fit in RAM but should not grow the heap. Either way every buffer belongs to an {@link OffHeapArena}
+ * that {@link #close()} releases at once, together with the scratch files, so a carver must be
+ * loaded, resized and closed on the same thread.
+ */
+public class OutOfCoreCarver implements Closeable {
+    private static final long DEFAULT_BAND_BYTES = 64L << 20;
+    // Side of the square tiles copied through the heap when transposing
+    private static final int TRANSPOSE_TILE = 256;
+    // Share of the maximum heap a decoded band of the input may take
+    private static final int DECODE_HEAP_FRACTION = 4;
+
+    private final File directory;
+    private OffHeapArena arena;
+    private long bandBytes = DEFAULT_BAND_BYTES;
+    private ResizeStatistics statistics;
+
+    private int width;
+    private int height;
+    // 원본 크기: 파일의 행 간격(stride)과 행 수는 이 크기로 고정된다
+    private int capacityWidth;
+    private int capacityHeight;
+
+    private Path pixelPath;
+    private Path transposedPath;
+    private Path backtrackPath;
+    private FileChannel pixelChannel;
+    private FileChannel transposedChannel;
+    private FileChannel backtrackChannel;
+    private BandGrid pixels;
+    private BandGrid transposed;
+    // 백트랙 파일을 방향별 행 간격으로 매핑한 것 (원본 방향, 전치 방향)
+    private BandGrid backtrack;
+    private BandGrid transposedBacktrack;
+
+    /**
+     * @param directory The directory for the scratch files, which need about 10 bytes per pixel of the
+     *                  original image; a disk-backed location rather than a RAM file system.
+     */
+    public OutOfCoreCarver(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Creates a carver that keeps its bands in off-heap memory, about 10 bytes per pixel of the original
+     * image. Direct memory is capped by {@code -XX:MaxDirectMemorySize}, which defaults to the maximum
+     * heap size, so raise it for images larger than the heap.
+     */
+    public OutOfCoreCarver() {
+        this(null);
+    }
+
+    /**
+     * Sets the largest number of bytes mapped at once, e.g. to fit the address space of small machines,
+     * and the smallest band decoded at once. Takes effect on the next load.
+     */
+    public void setBandBytes(long bandBytes) {
+        if (bandBytes < 1) {
+            throw new IllegalArgumentException("Band size must be positive: " + bandBytes);
+        }
+        this.bandBytes = bandBytes;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Decodes an image file into the scratch file band by band, so the whole image is never decoded at once.
+     * Each band after the first makes the decoder skip through the rows before it, so bands are as tall as
+     * a quarter of the maximum heap allows.
+     */
+    public void load(File input) throws IOException {
+        try (ImageInputStream stream = ImageIO.createImageInputStream(input)) {
+            Iterator<ImageReader> readers = (stream == null) ? null : ImageIO.getImageReaders(stream);
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException(input + ": not a readable image");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(stream, false, true);
+                allocate(reader.getWidth(0), reader.getHeight(0));
+
+                int[] row = new int[width];
+                // 영역을 나눠 읽으면 디코더가 앞부분을 다시 풀어야 하므로, 힙의 1/4까지는 한 번에 읽는다.
+                // 띠마다 같은 이미지에 디코딩해 힙에는 띠 하나만 남게 한다
+                long decodeBytes = Math.max(bandBytes, Runtime.getRuntime().maxMemory() / DECODE_HEAP_FRACTION);
+                int bandRows = (int) Math.max(1, Math.min(height, decodeBytes / ((long) width * Integer.BYTES)));
+                BufferedImage band = reader.getImageTypes(0).next().createBufferedImage(width, bandRows);
+                for (int y = 0; y < height; y += bandRows) {
+                    ImageReadParam param = reader.getDefaultReadParam();
+                    int rows = Math.min(bandRows, height - y);
+                    param.setSourceRegion(new Rectangle(0, y, width, rows));
+                    param.setDestination(band);
+                    reader.read(0, param);
+                    for (int i = 0; i < rows; i++) {
+                        band.getRGB(0, i, width, 1, row, 0, width);
+                        pixels.put(y + i, 0, row, width);
+                    }
+                }
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Copies an image that is already in memory into the scratch file.
+     */
+    public void load(BufferedImage image) throws IOException {
+        allocate(image.getWidth(), image.getHeight());
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            pixels.put(y, 0, row, width);
+        }
+    }
+
+    /**
+     * Removes seams until the image has the given size, width first.
+     * Stops with a {@link CancellationException} once the calling thread is interrupted; the image
+     * then has to be loaded again.
+     *
+     * @param progressCallback Receives the completed percentage.
+     * @return The statistics of this resize; the forward pass counts as DP (it includes the energy),
+     *         the backward pass as compaction (it includes the backtracking).
+     */
+    public ResizeStatistics resize(int targetWidth, int targetHeight, Consumer<Integer> progressCallback) throws IOException {
+        if (pixels == null) {
+            throw new IllegalStateException("No image loaded");
+        }
+        if (targetWidth < 1 || targetHeight < 1 || targetWidth > width || targetHeight > height) {
+            throw new IllegalArgumentException("Out-of-core carving only reduces images: "
+                    + width + "x" + height + " -> " + targetWidth + "x" + targetHeight);
+        }
+
+        long resizeStart = System.nanoTime();
+        statistics = new ResizeStatistics(directory != null ? "out-of-core" : "off-heap", width, height, targetWidth, targetHeight);
+        int totalSteps = Math.max((width - targetWidth) + (height - targetHeight), 1);
+        int[] completedSteps = {0};
+        Consumer<Integer> stepCallback = steps -> {
+            completedSteps[0] += steps;
+            progressCallback.accept(Math.min(completedSteps[0] * 100 / totalSteps, 100));
+        };
+
+        try {
+            // Width adjustment
+            if (targetWidth < width) {
+                carve(pixels, width, height, width - targetWidth, stepCallback);
+                width = targetWidth;
+            }
+
+            // Height adjustment on the transposed file
+            if (targetHeight < height) {
+                if (transposed == null) {
+                    if (directory != null) {
+                        transposedPath = Files.createTempFile(directory.toPath(), "carve", ".transposed");
+                        transposedChannel = openScratch(transposedPath);
+                    }
+                    transposed = new BandGrid(transposedChannel, arena, capacityHeight, capacityWidth, Integer.BYTES, bandBytes);
+                }
+                long start = System.nanoTime();
+                transpose(pixels, transposed, width, height);
+                recordPhase(ResizeStatistics.Phase.CONVERSION, start);
+
+                carve(transposed, height, width, height - targetHeight, stepCallback);
+                height = targetHeight;
+
+                start = System.nanoTime();
+                transpose(transposed, pixels, height, width);
+                recordPhase(ResizeStatistics.Phase.CONVERSION, start);
+            }
+
+            progressCallback.accept(100);
+            statistics.setTotalNanos(System.nanoTime() - resizeStart);
+            return statistics;
+        } catch (CancellationException ex) {
+            // 시임 도중에 멈춘 파일은 쓸 수 없으므로 버리고, 다시 load해야 한다
+            close();
+            throw ex;
+        } finally {
+            statistics = null;
+        }
+    }
+
+    /**
+     * Returns an image view of the current contents that reads rows from the bands on demand,
+     * e.g. for {@link ImageIO#write}. The PNG writer requests one row at a time, so writing never
+     * holds the whole image. The view reflects later changes, so write it before resizing again,
+     * and it fails once the carver is closed.
+     */
+    public RenderedImage asRenderedImage() {
+        return new BandImage(pixels, arena, width, height, rowsPerBand(width));
+    }
+
+    /**
+     * Writes the current contents as a PNG file, streaming rows from the bands.
+     */
+    public void write(File output) throws IOException {
+        if (!ImageIO.write(asRenderedImage(), "png", output)) {
+            throw new IOException("No PNG writer available");
+        }
+    }
+
+    /**
+     * Copies the current contents into a heap image; only sensible for images that fit in memory.
+     */
+    public BufferedImage toImage() {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            pixels.get(y, 0, row, width);
+            image.setRGB(0, y, width, 1, row, 0, width);
+        }
+        return image;
+    }
+
+    @Override
+    public void close() throws IOException {
+        // Unmaps and frees every band before the files are deleted; should the release be unavailable,
+        // systems that refuse to delete mapped files remove them at exit instead
+        if (arena != null) {
+            arena.close();
+            arena = null;
+        }
+        pixels = transposed = backtrack = transposedBacktrack = null;
+        closeScratch(pixelChannel, pixelPath);
+        closeScratch(transposedChannel, transposedPath);
+        closeScratch(backtrackChannel, backtrackPath);
+        pixelChannel = transposedChannel = backtrackChannel = null;
+        pixelPath = transposedPath = backtrackPath = null;
+    }
+
+    private void allocate(int width, int height) throws IOException {
+        close();
+        this.width = width;
+        this.height = height;
+        this.capacityWidth = width;
+        this.capacityHeight = height;
+        arena = new OffHeapArena();
+        if (directory != null) {
+            pixelPath = Files.createTempFile(directory.toPath(), "carve", ".pixels");
+            pixelChannel = openScratch(pixelPath);
+            backtrackPath = Files.createTempFile(directory.toPath(), "carve", ".backtrack");
+            backtrackChannel = openScratch(backtrackPath);
+        }
+        pixels = new BandGrid(pixelChannel, arena, width, height, Integer.BYTES, bandBytes);
+    }
+
+    private static FileChannel openScratch(Path path) throws IOException {
+        path.toFile().deleteOnExit();
+        return FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private static void closeScratch(FileChannel channel, Path path) throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+        if (path != null) {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException ex) {
+                // Still mapped; deleteOnExit takes care of it
+            }
+        }
+    }
+
+    private int rowsPerBand(int rowWidth) {
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, bandBytes / ((long) rowWidth * Integer.BYTES)));
+    }
+
+    // grid의 왼쪽 width x height 영역에서 수직 시임을 count개 제거한다
+    private void carve(BandGrid grid, int width, int height, int count, Consumer<Integer> stepCallback) throws IOException {
+        // 파일 모드에서는 같은 백트랙 파일을 이 방향의 행 간격으로 다시 매핑해 쓴다
+        if (grid == pixels && backtrack == null) {
+            backtrack = new BandGrid(backtrackChannel, arena, grid.stride, grid.rows, Byte.BYTES, bandBytes);
+        } else if (grid == transposed && transposedBacktrack == null) {
+            transposedBacktrack = new BandGrid(backtrackChannel, arena, grid.stride, grid.rows, Byte.BYTES, bandBytes);
+        }
+        SeamPass pass = new SeamPass(grid, (grid == pixels) ? backtrack : transposedBacktrack, grid.stride);
+        if (statistics != null) {
+            statistics.recordWorkingSet(pass.getHeapBytes() + arena.getAllocatedBytes());
+        }
+
+        for (int i = 0; i < count; i++) {
+            SeamCarver.checkCancelled();
+            long seamStart = System.nanoTime();
+
+            int x = pass.forward(width, height);
+            long time = recordPhase(ResizeStatistics.Phase.DP, seamStart);
+            pass.removeBackward(x, width, height);
+            time = recordPhase(ResizeStatistics.Phase.COMPACTION, time);
+            width--;
+
+            if (statistics != null) {
+                statistics.seamCompleted(time - seamStart);
+            }
+            stepCallback.accept(1);
+        }
+    }
+
+    // Copies the top-left width x height region of source into target, transposed, tile by tile
+    private static void transpose(BandGrid source, BandGrid target, int width, int height) {
+        int[] tile = new int[TRANSPOSE_TILE * TRANSPOSE_TILE];
+        int[] column = new int[TRANSPOSE_TILE];
+        for (int tileY = 0; tileY < height; tileY += TRANSPOSE_TILE) {
+            SeamCarver.checkCancelled();
+            int rows = Math.min(TRANSPOSE_TILE, height - tileY);
+            for (int tileX = 0; tileX < width; tileX += TRANSPOSE_TILE) {
+                int columns = Math.min(TRANSPOSE_TILE, width - tileX);
+                for (int y = 0; y < rows; y++) {
+                    source.get(tileY + y, tileX, tile, y * TRANSPOSE_TILE, columns);
+                }
+                for (int x = 0; x < columns; x++) {
+                    for (int y = 0; y < rows; y++) {
+                        column[y] = tile[y * TRANSPOSE_TILE + x];
+                    }
+                    target.put(tileX + x, tileY, column, rows);
+                }
+            }
+        }
+    }
+
+    // 지난 시각부터의 경과 시간을 통계에 더하고 현재 시각을 돌려준다
+    private long recordPhase(ResizeStatistics.Phase phase, long since) {
+        long now = System.nanoTime();
+        if (statistics != null) {
+            statistics.addPhase(phase, now - since);
+        }
+        return now;
+    }
+
+    /**
+     * Row buffers for the passes of one orientation. The forward pass matches {@link SeamFinder}'s full
+     * pass exactly (same energy, float costs and tie-breaking), so the seams are the standard method's.
+     */
+    private static final class SeamPass {
+        private final BandGrid grid;
+        private final BandGrid backtrack;
+
+        private int[] up;
+        private int[] current;
+        private int[] down;
+        private final int[] firstRow;
+        private final int[] lastRow;
+        private float[] previousCost;
+        private float[] currentCost;
+        private final byte[] offsets;
+        private final int[] gradients;
+        private final double[] energy;
+        private final float[] energyRow;
+
+        SeamPass(BandGrid grid, BandGrid backtrack, int stride) {
+            this.grid = grid;
+            this.backtrack = backtrack;
+            up = new int[stride];
+            current = new int[stride];
+            down = new int[stride];
+            firstRow = new int[stride];
+            lastRow = new int[stride];
+            previousCost = new float[stride];
+            currentCost = new float[stride];
+            offsets = new byte[stride];
+            gradients = new int[stride];
+            energy = new double[stride];
+            energyRow = new float[stride];
+        }
+
+        long getHeapBytes() {
+            return (long) offsets.length * (9 * Integer.BYTES + Byte.BYTES + Double.BYTES);
+        }
+
+        // Computes the cost rows top to bottom, spilling the offsets; returns the seam's column in the last row
+        int forward(int width, int height) {
+            grid.get(0, 0, firstRow, width);
+            grid.get(height - 1, 0, lastRow, width);
+            System.arraycopy(lastRow, 0, up, 0, width);
+            System.arraycopy(firstRow, 0, current, 0, width);
+
+            for (int y = 0; y < height; y++) {
+                if (y % SeamFinder.CANCEL_CHECK_ROWS == 0) {
+                    SeamCarver.checkCancelled();
+                }
+                // 위아래 경계는 반대쪽 행으로 감싼다
+                if (y == height - 1) {
+                    System.arraycopy(firstRow, 0, down, 0, width);
+                } else if (y + 1 == height - 1) {
+                    System.arraycopy(lastRow, 0, down, 0, width);
+                } else {
+                    grid.get(y + 1, 0, down, width);
+                }
+
+                computeCostRow(y, width);
+                if (y > 0) {
+                    backtrack.put(y, offsets, width);
+                }
+
+                float[] costs = previousCost;
+                previousCost = currentCost;
+                currentCost = costs;
+                int[] rows = up;
+                up = current;
+                current = down;
+                down = rows;
+            }
+
+            // 최소 에너지 시임 찾기
+            float minTotalEnergy = Float.POSITIVE_INFINITY;
+            int minIndex = -1;
+            for (int x = 0; x < width; x++) {
+                if (previousCost[x] < minTotalEnergy) {
+                    minTotalEnergy = previousCost[x];
+                    minIndex = x;
+                }
+            }
+            return minIndex;
+        }
+
+        private void computeCostRow(int y, int width) {
+            if (RowKernels.isEnabled()) {
+                RowKernels.energyRow(current, 0, up, 0, down, 0, width, gradients, energy);
+                if (y == 0) {
+                    for (int x = 0; x < width; x++) {
+                        currentCost[x] = (float) energy[x];
+                    }
+                } else {
+                    RowKernels.costRow(energy, energyRow, previousCost, currentCost, offsets, 0, 0, width - 1, width);
+                }
+                return;
+            }
+            for (int x = 0; x < width; x++) {
+                float energy = energyAt(x, width);
+                if (y == 0) {
+                    currentCost[x] = energy;
+                    continue;
+                }
+                float minEnergy = previousCost[x];
+                byte offset = 0;
+                if (x > 0 && previousCost[x - 1] < minEnergy) {
+                    minEnergy = previousCost[x - 1];
+                    offset = -1;
+                }
+                if (x < width - 1 && previousCost[x + 1] < minEnergy) {
+                    minEnergy = previousCost[x + 1];
+                    offset = 1;
+                }
+                currentCost[x] = energy + minEnergy;
+                offsets[x] = offset;
+            }
+        }
+
+        // Dual-gradient energy of the current row, as in EnergyCalculator
+        private float energyAt(int x, int width) {
+            int rgbLeft = current[(x == 0) ? width - 1 : x - 1];
+            int rgbRight = current[(x == width - 1) ? 0 : x + 1];
+            int rgbUp = up[x];
+            int rgbDown = down[x];
+
+            int deltaXRed = ((rgbRight >> 16) & 0xff) - ((rgbLeft >> 16) & 0xff);
+            int deltaXGreen = ((rgbRight >> 8) & 0xff) - ((rgbLeft >> 8) & 0xff);
+            int deltaXBlue = (rgbRight & 0xff) - (rgbLeft & 0xff);
+
+            int deltaYRed = ((rgbDown >> 16) & 0xff) - ((rgbUp >> 16) & 0xff);
+            int deltaYGreen = ((rgbDown >> 8) & 0xff) - ((rgbUp >> 8) & 0xff);
+            int deltaYBlue = (rgbDown & 0xff) - (rgbUp & 0xff);
+
+            return deltaXRed * deltaXRed + deltaXGreen * deltaXGreen + deltaXBlue * deltaXBlue
+                    + deltaYRed * deltaYRed + deltaYGreen * deltaYGreen + deltaYBlue * deltaYBlue;
+        }
+
+        // Follows the spilled offsets from the bottom row up, removing the seam pixel from each row.
+        // 행 일부만 압축된 채로 멈추면 이미지가 깨지므로 이 패스 중에는 취소를 확인하지 않는다
+        void removeBackward(int x, int width, int height) {
+            int[] row = current;
+            for (int y = height - 1; y >= 0; y--) {
+                int tail = width - x - 1;
+                grid.get(y, x + 1, row, tail);
+                grid.put(y, x, row, tail);
+                if (y > 0) {
+                    x += backtrack.getByte(y, x);
+                }
+            }
+        }
+    }
+
+    /**
+     * Rows x stride cells in bands of whole rows, each band at most the given size (and never more than
+     * one buffer can address), either mapped from a file or allocated off heap.
+     */
+    private static final class BandGrid {
+        final int stride;
+        final int rows;
+        private final int rowsPerBand;
+        private final ByteBuffer[] bytes;
+        private final IntBuffer[] ints;
+
+        // channel: 매핑할 파일, null이면 힙 밖 메모리에 할당한다
+        BandGrid(FileChannel channel, OffHeapArena arena, int stride, int rows, int cellBytes, long bandBytes) throws IOException {
+            long rowBytes = (long) stride * cellBytes;
+            if (rowBytes > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Row too wide to map: " + stride);
+            }
+            this.stride = stride;
+            this.rows = rows;
+            this.rowsPerBand = (int) Math.max(1, Math.min(rows, Math.min(bandBytes, Integer.MAX_VALUE) / rowBytes));
+
+            int bandCount = (rows + rowsPerBand - 1) / rowsPerBand;
+            bytes = new ByteBuffer[bandCount];
+            ints = (cellBytes == Integer.BYTES) ? new IntBuffer[bandCount] : null;
+            for (int band = 0; band < bandCount; band++) {
+                int bandRows = Math.min(rowsPerBand, rows - band * rowsPerBand);
+                if (channel == null) {
+                    bytes[band] = arena.allocate(bandRows * rowBytes);
+                } else {
+                    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE,
+                            band * rowsPerBand * rowBytes, bandRows * rowBytes);
+                    bytes[band] = arena.register(buffer).order(ByteOrder.nativeOrder());
+                }
+                if (ints != null) {
+                    ints[band] = bytes[band].asIntBuffer();
+                }
+            }
+        }
+
+        void get(int y, int x, int[] target, int offset, int length) {
+            ints[y / rowsPerBand].get((y % rowsPerBand) * stride + x, target, offset, length);
+        }
+
+        void get(int y, int x, int[] target, int length) {
+            get(y, x, target, 0, length);
+        }
+
+        void put(int y, int x, int[] source, int length) {
+            ints[y / rowsPerBand].put((y % rowsPerBand) * stride + x, source, 0, length);
+        }
+
+        void put(int y, byte[] source, int length) {
+            bytes[y / rowsPerBand].put((y % rowsPerBand) * stride, source, 0, length);
+        }
+
+        byte getByte(int y, int x) {
+            return bytes[y / rowsPerBand].get((y % rowsPerBand) * stride + x);
+        }
+    }
+
+    /**
+     * Read-only image over the top-left region of a pixel grid, tiled in bands of whole rows.
+     */
+    private static final class BandImage implements RenderedImage {
+        private final BandGrid grid;
+        private final OffHeapArena arena;
+        private final int width;
+        private final int height;
+        private final int tileHeight;
+        private final ColorModel colorModel = ColorModel.getRGBdefault();
+
+        BandImage(BandGrid grid, OffHeapArena arena, int width, int height, int tileHeight) {
+            this.grid = grid;
+            this.arena = arena;
+            this.width = width;
+            this.height = height;
+            this.tileHeight = Math.min(tileHeight, height);
+        }
+
+        @Override
+        public Raster getData(Rectangle rect) {
+            return copyData(colorModel.createCompatibleWritableRaster(rect.width, rect.height)
+                    .createWritableTranslatedChild(rect.x, rect.y));
+        }
+
+        @Override
+        public WritableRaster copyData(WritableRaster raster) {
+            // 해제된 메모리를 읽으면 JVM이 죽으므로 닫힌 뒤에는 예외로 막는다
+            if (!arena.isOpen()) {
+                throw new IllegalStateException("Carver already closed");
+            }
+            Rectangle bounds = raster.getBounds().intersection(new Rectangle(width, height));
+            int[] row = new int[Math.max(bounds.width, 0)];
+            for (int y = bounds.y; y < bounds.y + bounds.height; y++) {
+                grid.get(y, bounds.x, row, bounds.width);
+                raster.setDataElements(bounds.x, y, bounds.width, 1, row);
+            }
+            return raster;
+        }
+
+        @Override
+        public Raster getData() {
+            return getData(new Rectangle(width, height));
+        }
+
+        @Override
+        public Raster getTile(int tileX, int tileY) {
+            int y = tileY * tileHeight;
+            return getData(new Rectangle(0, y, width, Math.min(tileHeight, height - y)));
+        }
+
+        @Override
+        public Vector<RenderedImage> getSources() {
+            return null;
+        }
+
+        @Override
+        public Object getProperty(String name) {
+            return Image.UndefinedProperty;
+        }
+
+        @Override
+        public String[] getPropertyNames() {
+            return null;
+        }
+
+        @Override
+        public ColorModel getColorModel() {
+            return colorModel;
+        }
+
+        @Override
+        public SampleModel getSampleModel() {
+            return colorModel.createCompatibleSampleModel(width, tileHeight);
+        }
+
+        @Override
+        public int getWidth() {
+            return width;
+        }
+
+        @Override
+        public int getHeight() {
+            return height;
+        }
+
+        @Override
+        public int getMinX() {
+            return 0;
+        }
+
+        @Override
+        public int getMinY() {
+            return 0;
+        }
+
+        @Override
+        public int getNumXTiles() {
+            return 1;
+        }
+
+        @Override
+        public int getNumYTiles() {
+            return (height + tileHeight - 1) / tileHeight;
+        }
+
+        @Override
+        public int getMinTileX() {
+            return 0;
+        }
+
+        @Override
+        public int getMinTileY() {
+            return 0;
+        }
+
+        @Override
+        public int getTileWidth() {
+            return width;
+        }
+
+        @Override
+        public int getTileHeight() {
+            return tileHeight;
+        }
+
+        @Override
+        public int getTileGridXOffset() {
+            return 0;
+        }
+
+        @Override
+        public int getTileGridYOffset() {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Splits an index range into chunks and runs them on a fork/join pool.
+ * Runs the whole range on the calling thread when no pool is set or the range fits in one chunk.
+ */
+public class ParallelRange {
+    @FunctionalInterface
+    public interface Body {
+        void run(int from, int to);
+    }
+
+    private ParallelRange() {
+    }
+
+    /**
+     * Runs {@code body} over [from, to) and returns once every chunk has finished.
+     *
+     * @param pool  The pool to run on, or {@code null} to run serially.
+     * @param from  The first index (inclusive).
+     * @param to    The last index (exclusive).
+     * @param grain The largest chunk handed to a single task.
+     * @param body  The work for one chunk [from, to).
+     */
+    public static void forEach(ForkJoinPool pool, int from, int to, int grain, Body body) {
+        if (pool == null || to - from <= grain) {
+            body.run(from, to);
+        } else {
+            pool.invoke(new Chunk(from, to, Math.max(grain, 1), body));
+        }
+    }
+
+    // Never serialized; the body is an arbitrary lambda
+    @SuppressWarnings("serial")
+    private static class Chunk extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final int grain;
+        private final Body body;
+
+        Chunk(int from, int to, int grain, Body body) {
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+            this.body = body;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                body.run(from, to);
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Chunk(from, middle, grain, body), new Chunk(middle, to, grain, body));
+            }
+        }
+    }
+}
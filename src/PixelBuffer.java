@@ -0,0 +1,195 @@
+import java.awt.image.BufferedImage;
+
+/**
+ * Packed ARGB working buffer used by the carving engine.
+ * Pixels are stored row by row in a single int array with a fixed row stride, so seams can be
+ * removed and inserted in place without allocating a new image per seam.
+ */
+public class PixelBuffer {
+    private static final int TRANSPOSE_TILE = 32;
+
+    private final int[] pixels;
+    private final int stride;
+    private final int capacityHeight;
+    private int width;
+    private int height;
+
+    /**
+     * Creates a buffer holding a copy of the given image.
+     *
+     * @param image          The source image, converted to packed ARGB once.
+     * @param capacityWidth  The largest width the buffer has to hold (used as the row stride).
+     * @param capacityHeight The largest height the buffer has to hold.
+     */
+    public PixelBuffer(BufferedImage image, int capacityWidth, int capacityHeight) {
+        this(image, capacityWidth, capacityHeight, null);
+    }
+
+    /**
+     * Creates a buffer holding a copy of the given image in existing storage, e.g. a {@link CarvingWorkspace} slot.
+     *
+     * @param storage An array of at least capacity width x capacity height entries, or {@code null} to allocate one.
+     */
+    PixelBuffer(BufferedImage image, int capacityWidth, int capacityHeight, int[] storage) {
+        this.width = image.getWidth();
+        this.height = image.getHeight();
+        this.stride = Math.max(width, capacityWidth);
+        this.capacityHeight = Math.max(height, capacityHeight);
+        this.pixels = checkStorage(storage, stride, this.capacityHeight);
+        image.getRGB(0, 0, width, height, pixels, 0, stride);
+    }
+
+    PixelBuffer(int[] pixels, int stride, int capacityHeight, int width, int height) {
+        this.pixels = pixels;
+        this.stride = stride;
+        this.capacityHeight = capacityHeight;
+        this.width = width;
+        this.height = height;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getStride() {
+        return stride;
+    }
+
+    public int getCapacityHeight() {
+        return capacityHeight;
+    }
+
+    /**
+     * Returns the backing array. The pixel at (x, y) is stored at {@code y * getStride() + x}.
+     */
+    public int[] getPixels() {
+        return pixels;
+    }
+
+    /**
+     * Changes the logical width, e.g. after the caller has filled the extra columns itself.
+     *
+     * @param width The new width, at most {@link #getStride()}.
+     */
+    void setWidth(int width) {
+        if (width > stride) {
+            throw new IllegalStateException("Buffer capacity exceeded: " + stride);
+        }
+        this.width = width;
+    }
+
+    /**
+     * Returns an independent copy with the same contents and capacity.
+     */
+    public PixelBuffer copy() {
+        return new PixelBuffer(pixels.clone(), stride, capacityHeight, width, height);
+    }
+
+    /**
+     * Returns a copy with the same contents and capacity backed by the given storage.
+     *
+     * @param storage An array of at least {@code stride * capacityHeight} entries, or {@code null} to allocate one.
+     */
+    PixelBuffer copyInto(int[] storage) {
+        int[] target = checkStorage(storage, stride, capacityHeight);
+        System.arraycopy(pixels, 0, target, 0, height * stride);
+        return new PixelBuffer(target, stride, capacityHeight, width, height);
+    }
+
+    /**
+     * Returns the size of the backing array in bytes.
+     */
+    public long getSizeInBytes() {
+        return (long) pixels.length * Integer.BYTES;
+    }
+
+    public int getRGB(int x, int y) {
+        return pixels[y * stride + x];
+    }
+
+    /**
+     * Removes one pixel per row, shifting the rest of each row to the left.
+     *
+     * @param seam The x-coordinate of the pixel to remove in each row.
+     */
+    public void removeVerticalSeam(int[] seam) {
+        for (int y = 0; y < height; y++) {
+            int row = y * stride;
+            System.arraycopy(pixels, row + seam[y] + 1, pixels, row + seam[y], width - seam[y] - 1);
+        }
+        width--;
+    }
+
+    /**
+     * Returns a new buffer holding the transpose of this one, so that columns become rows.
+     * The capacities are swapped as well, so seams can still be inserted up to the original capacity.
+     */
+    public PixelBuffer transpose() {
+        return transposeInto(null);
+    }
+
+    /**
+     * Same as {@link #transpose()}, but backed by the given storage.
+     *
+     * @param storage An array of at least {@code stride * capacityHeight} entries, or {@code null} to allocate one.
+     */
+    PixelBuffer transposeInto(int[] storage) {
+        PixelBuffer transposed = new PixelBuffer(checkStorage(storage, capacityHeight, stride), capacityHeight, stride, height, width);
+        transpose(pixels, stride, transposed.pixels, transposed.stride, width, height);
+        return transposed;
+    }
+
+    private static int[] checkStorage(int[] storage, int stride, int capacityHeight) {
+        int size = Math.multiplyExact(stride, capacityHeight);
+        if (storage == null) {
+            return new int[size];
+        }
+        if (storage.length < size) {
+            throw new IllegalArgumentException("Storage too small: " + storage.length + " < " + size);
+        }
+        return storage;
+    }
+
+    /**
+     * Replaces the contents of this buffer with the transpose of the given buffer.
+     *
+     * @param source A buffer whose transpose fits within this buffer's capacity.
+     */
+    public void transposeFrom(PixelBuffer source) {
+        if (source.height > stride || source.width > capacityHeight) {
+            throw new IllegalStateException("Buffer capacity exceeded: " + source.height + "x" + source.width);
+        }
+        transpose(source.pixels, source.stride, pixels, stride, source.width, source.height);
+        width = source.height;
+        height = source.width;
+    }
+
+    // Copies tile by tile so both the reads and the writes stay within a few cache lines
+    private static void transpose(int[] source, int sourceStride, int[] target, int targetStride, int width, int height) {
+        for (int tileY = 0; tileY < height; tileY += TRANSPOSE_TILE) {
+            int endY = Math.min(tileY + TRANSPOSE_TILE, height);
+            for (int tileX = 0; tileX < width; tileX += TRANSPOSE_TILE) {
+                int endX = Math.min(tileX + TRANSPOSE_TILE, width);
+                for (int y = tileY; y < endY; y++) {
+                    int row = y * sourceStride;
+                    for (int x = tileX; x < endX; x++) {
+                        target[x * targetStride + y] = source[row + x];
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Builds an image from the current contents of the buffer.
+     */
+    public BufferedImage toImage() {
+        BufferedImage output = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        output.setRGB(0, 0, width, height, pixels, 0, stride);
+        return output;
+    }
+}
@@ -0,0 +1,123 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Coarse-to-fine seam search for large images.
+ * The energy map is pooled into {@code factor x factor} blocks, a full seam search runs on that
+ * small map, and the resulting path is upsampled and refined with a DP restricted to a band of
+ * {@code bandWidth} pixels on each side of it at full resolution. A wider band gives seams closer to
+ * the standard search; a narrower band is faster.
+ */
+public class PyramidSeamFinder extends BandSeamFinder {
+    private final int factor;
+
+    private double[][] coarse;
+    private int[] blockCount;
+    private final SeamFinder coarseFinder = new SeamFinder();
+    private int[] coarseSeam;
+
+    /**
+     * @param factor    The downscale factor of the coarse level (at least 2).
+     * @param bandWidth The number of pixels searched on each side of the upsampled path (at least 1).
+     */
+    public PyramidSeamFinder(int factor, int bandWidth) {
+        super(bandWidth);
+        if (factor < 2 || bandWidth < 1) {
+            throw new IllegalArgumentException("Invalid pyramid parameters: factor " + factor + ", band " + bandWidth);
+        }
+        this.factor = factor;
+    }
+
+    public int getFactor() {
+        return factor;
+    }
+
+    @Override
+    public void setForkJoinPool(ForkJoinPool forkJoinPool) {
+        super.setForkJoinPool(forkJoinPool);
+        coarseFinder.setForkJoinPool(forkJoinPool);
+    }
+
+    @Override
+    public int[] findSeam(double[][] energy, int width, int height, int[] seam) {
+        // Too small to downscale: plain full search
+        if (width < 2 * factor || height < 2 * factor) {
+            invalidate();
+            return super.findSeam(energy, width, height, seam);
+        }
+
+        long start = System.nanoTime();
+        int coarseWidth = (width + factor - 1) / factor;
+        int coarseHeight = (height + factor - 1) / factor;
+        poolEnergy(energy, width, height, coarseWidth, coarseHeight);
+
+        if (coarseSeam == null || coarseSeam.length < coarseHeight) {
+            coarseSeam = new int[coarseHeight];
+        }
+        coarseFinder.invalidate();
+        coarseFinder.findSeam(coarse, coarseWidth, coarseHeight, coarseSeam);
+
+        upsample(width, height, coarseHeight);
+        return refine(energy, width, height, seam, start);
+    }
+
+    @Override
+    long getTableBytes() {
+        long bytes = super.getTableBytes() + coarseFinder.getTableBytes();
+        if (coarse != null) {
+            bytes += (long) coarse.length * coarse[0].length * Double.BYTES;
+        }
+        return bytes;
+    }
+
+    // Every search starts from the pooled map, so there is no table to keep up to date
+    @Override
+    public void seamRemoved(int[] seam, int width, int height) {
+    }
+
+    // Averages the energy of each block; partial blocks at the borders are averaged over the pixels they have
+    private void poolEnergy(double[][] energy, int width, int height, int coarseWidth, int coarseHeight) {
+        if (coarse == null || coarse.length < coarseHeight || coarse[0].length < coarseWidth) {
+            coarse = new double[coarseHeight][coarseWidth];
+            blockCount = new int[coarseWidth];
+        }
+
+        for (int cy = 0; cy < coarseHeight; cy++) {
+            double[] coarseRow = coarse[cy];
+            Arrays.fill(coarseRow, 0, coarseWidth, 0);
+            int fromY = cy * factor;
+            int toY = Math.min(fromY + factor, height);
+            for (int y = fromY; y < toY; y++) {
+                double[] row = energy[y];
+                for (int x = 0; x < width; x++) {
+                    coarseRow[x / factor] += row[x];
+                }
+            }
+
+            int rows = toY - fromY;
+            for (int cx = 0; cx < coarseWidth; cx++) {
+                blockCount[cx] = rows * (Math.min((cx + 1) * factor, width) - cx * factor);
+                coarseRow[cx] /= blockCount[cx];
+            }
+        }
+    }
+
+    // Maps the coarse path to full resolution, interpolating between block centres so it moves at most one pixel per row
+    private void upsample(int width, int height, int coarseHeight) {
+        ensureBand(height);
+
+        int half = factor / 2;
+        for (int y = 0; y < height; y++) {
+            int cy = Math.min((y - half) / factor, coarseHeight - 1);
+            if (y < half) {
+                cy = 0;
+            }
+            int nextCy = Math.min(cy + 1, coarseHeight - 1);
+            int from = coarseSeam[cy] * factor + half;
+            int to = coarseSeam[nextCy] * factor + half;
+            int step = Math.max(y - (cy * factor + half), 0);
+            int position = from + Math.floorDiv((to - from) * Math.min(step, factor), factor);
+            center[y] = Math.max(0, Math.min(position, width - 1));
+        }
+    }
+}
@@ -0,0 +1,225 @@
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Byte-bounded LRU cache of finished resizes and of the seam removal orders ({@link SeamIndex}) they
+ * were built from, shared by any number of {@link ImageResizer}s. Entries are keyed by the SHA-256 of
+ * the source pixels rather than by image identity, so the same asset loaded twice hits the cache.
+ * Results are keyed by target size, method (with its parameters) and, for methods that evaluate energy,
+ * energy function name and version; removal orders by energy function only, since one order serves every standard width change of an image.
+ * When the budget is exceeded the least recently used entries of either kind are dropped.
+ *
+ * <p>Cached images are shared between callers and must not be modified. Two threads missing the same
+ * key at once both compute it; the second result simply replaces the first. Safe to share between threads.
+ */
+public class ResizeCache {
+    // Rough per-entry bookkeeping cost added to the pixel bytes
+    private static final long ENTRY_OVERHEAD = 256;
+
+    private final long maxBytes;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long sizeInBytes;
+
+    private long hits;
+    private long misses;
+    private long indexHits;
+    private long indexMisses;
+    private long evictions;
+
+    /**
+     * @param maxBytes The largest total size of the cached images and removal orders.
+     */
+    public ResizeCache(long maxBytes) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("Invalid cache size: " + maxBytes);
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns a hex SHA-256 of the image's size and ARGB pixels, independent of its storage type.
+     */
+    public static String contentHash(BufferedImage image) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            // Every Java platform is required to provide SHA-256
+            throw new IllegalStateException(ex);
+        }
+
+        int width = image.getWidth();
+        int height = image.getHeight();
+        ByteBuffer bytes = ByteBuffer.allocate(Math.max(width * Integer.BYTES, 2 * Integer.BYTES));
+        bytes.putInt(width).putInt(height).flip();
+        digest.update(bytes);
+
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            bytes.clear();
+            bytes.asIntBuffer().put(row);
+            bytes.limit(width * Integer.BYTES);
+            digest.update(bytes);
+        }
+
+        return toHex(digest.digest());
+    }
+
+    static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Returns a cached resize result, or {@code null}; counts a hit or a miss.
+     *
+     * @param energyFunction The energy function name, or {@code null} for a method that does not use one
+     *                       (e.g. "forced"), whose results are then shared by every energy function.
+     */
+    public synchronized BufferedImage getResult(String contentHash, String energyFunction, int energyVersion,
+                                                int targetWidth, int targetHeight, String method) {
+        Entry entry = entries.get(resultKey(contentHash, energyFunction, energyVersion, targetWidth, targetHeight, method));
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return (BufferedImage) entry.value;
+    }
+
+    public synchronized void putResult(String contentHash, String energyFunction, int energyVersion, int targetWidth,
+                                       int targetHeight, String method, BufferedImage result) {
+        long bytes = (long) result.getWidth() * result.getHeight() * Integer.BYTES;
+        put(resultKey(contentHash, energyFunction, energyVersion, targetWidth, targetHeight, method), result, bytes);
+    }
+
+    /**
+     * Returns a cached removal order of the image, or {@code null}; counts an index hit or miss.
+     */
+    public synchronized SeamIndex getSeamIndex(String contentHash, String energyFunction, int energyVersion) {
+        Entry entry = entries.get(indexKey(contentHash, energyFunction, energyVersion));
+        if (entry == null) {
+            indexMisses++;
+            return null;
+        }
+        indexHits++;
+        return (SeamIndex) entry.value;
+    }
+
+    /**
+     * Caches a removal order of the image, unless the cached one already reaches the same or a smaller width.
+     */
+    public synchronized void putSeamIndex(String contentHash, String energyFunction, int energyVersion, SeamIndex seamIndex) {
+        String key = indexKey(contentHash, energyFunction, energyVersion);
+        Entry existing = entries.get(key);
+        // 얕은 인덱스가 더 깊은 인덱스를 밀어내지 않도록 최소 너비가 같거나 작은 기존 항목은 그대로 둔다
+        if (existing != null && ((SeamIndex) existing.value).getMinWidth() <= seamIndex.getMinWidth()) {
+            return;
+        }
+        put(key, seamIndex, seamIndex.getSizeInBytes());
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        sizeInBytes = 0;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public synchronized long getSizeInBytes() {
+        return sizeInBytes;
+    }
+
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the number of result lookups that found a finished resize.
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of removal order lookups that found an index.
+     */
+    public synchronized long getIndexHits() {
+        return indexHits;
+    }
+
+    public synchronized long getIndexMisses() {
+        return indexMisses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.ROOT, "%d entries, %.1f/%.1f MB, %d hits, %d misses, %d index hits, %d index misses, %d evictions",
+                entries.size(), sizeInBytes / (1024.0 * 1024.0), maxBytes / (1024.0 * 1024.0),
+                hits, misses, indexHits, indexMisses, evictions);
+    }
+
+    private void put(String key, Object value, long bytes) {
+        bytes += ENTRY_OVERHEAD;
+        Entry previous = entries.remove(key);
+        if (previous != null) {
+            sizeInBytes -= previous.bytes;
+        }
+        // 예산보다 큰 항목은 다른 항목을 모두 밀어내고도 들어갈 수 없으므로 저장하지 않는다
+        if (bytes > maxBytes) {
+            return;
+        }
+
+        entries.put(key, new Entry(value, bytes));
+        sizeInBytes += bytes;
+
+        // 접근 순서 맵이므로 앞쪽이 가장 오래전에 쓰인 항목이다
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (sizeInBytes > maxBytes && iterator.hasNext()) {
+            Entry eldest = iterator.next().getValue();
+            iterator.remove();
+            sizeInBytes -= eldest.bytes;
+            evictions++;
+        }
+    }
+
+    private static String resultKey(String contentHash, String energyFunction, int energyVersion, int targetWidth,
+                                    int targetHeight, String method) {
+        String energy = (energyFunction == null) ? "-" : energyFunction + '/' + energyVersion;
+        return "result:" + contentHash + ':' + energy + ':' + targetWidth + 'x' + targetHeight + ':' + method;
+    }
+
+    private static String indexKey(String contentHash, String energyFunction, int energyVersion) {
+        return "index:" + contentHash + ':' + energyFunction + '/' + energyVersion;
+    }
+
+    private static final class Entry {
+        final Object value;
+        final long bytes;
+
+        Entry(Object value, long bytes) {
+            this.value = value;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event committed once per {@link ImageResizer#resize} call.
+ */
+@Name("seamcarving.Resize")
+@Label("Image Resize")
+@Category("Seam Carving")
+@Description("One seam carving resize with its per-phase timings")
+public class ResizeEvent extends jdk.jfr.Event {
+    @Label("Method")
+    String method;
+
+    @Label("Source Width")
+    int sourceWidth;
+
+    @Label("Source Height")
+    int sourceHeight;
+
+    @Label("Target Width")
+    int targetWidth;
+
+    @Label("Target Height")
+    int targetHeight;
+
+    @Label("Seams")
+    int seams;
+
+    @Label("Energy Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long energyTime;
+
+    @Label("DP Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long dpTime;
+
+    @Label("Backtrack Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long backtrackTime;
+
+    @Label("Compaction Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long compactionTime;
+
+    @Label("Conversion Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long conversionTime;
+
+    @Label("Peak Working Set")
+    @DataAmount
+    long peakWorkingSet;
+
+    void set(ResizeStatistics statistics) {
+        method = statistics.getMethod();
+        sourceWidth = statistics.getSourceWidth();
+        sourceHeight = statistics.getSourceHeight();
+        targetWidth = statistics.getTargetWidth();
+        targetHeight = statistics.getTargetHeight();
+        seams = statistics.getSeams();
+        energyTime = statistics.getPhaseNanos(ResizeStatistics.Phase.ENERGY);
+        dpTime = statistics.getPhaseNanos(ResizeStatistics.Phase.DP);
+        backtrackTime = statistics.getPhaseNanos(ResizeStatistics.Phase.BACKTRACK);
+        compactionTime = statistics.getPhaseNanos(ResizeStatistics.Phase.COMPACTION);
+        conversionTime = statistics.getPhaseNanos(ResizeStatistics.Phase.CONVERSION);
+        peakWorkingSet = statistics.getPeakWorkingSetBytes();
+    }
+}
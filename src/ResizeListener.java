@@ -0,0 +1,20 @@
+/**
+ * Receives structured progress from {@link ImageResizer#resize}.
+ * Both methods are called on the resizing thread; implementations should return quickly.
+ */
+public interface ResizeListener {
+    /**
+     * Called after every seam.
+     *
+     * @param seams        The number of seams completed so far in this resize.
+     * @param latencyNanos The time spent on this seam.
+     */
+    default void seamCompleted(int seams, long latencyNanos) {
+    }
+
+    /**
+     * Called once the resize has finished, with its final statistics.
+     */
+    default void resizeCompleted(ResizeStatistics statistics) {
+    }
+}
@@ -0,0 +1,178 @@
+import java.util.Locale;
+
+/**
+ * Timing and memory figures collected during one {@link ImageResizer#resize} call.
+ * Phase times are wall-clock times measured on the calling thread, so work split across the
+ * fork/join pool is counted once. Per-seam latencies are kept in a histogram with power-of-two
+ * microsecond buckets. Instances are filled by a single thread and should be read once the
+ * resize has finished, e.g. from {@link ResizeListener#resizeCompleted(ResizeStatistics)}.
+ */
+public class ResizeStatistics {
+    public enum Phase {
+        ENERGY,      // Energy map computation and incremental updates
+        DP,          // Cumulative cost table (full passes and dirty-region updates)
+        BACKTRACK,   // Minimum search on the last row and path backtracking
+        COMPACTION,  // Removing/inserting seams in the pixel buffer and the cost table
+        CONVERSION   // Image <-> buffer conversion, transposition and copies
+    }
+
+    // Bucket i counts seams that took [2^i, 2^(i+1)) microseconds; bucket 0 also holds anything faster
+    private static final int HISTOGRAM_BUCKETS = 32;
+
+    private final String method;
+    private final int sourceWidth;
+    private final int sourceHeight;
+    private final int targetWidth;
+    private final int targetHeight;
+
+    private final long[] phaseNanos = new long[Phase.values().length];
+    private final long[] latencyHistogram = new long[HISTOGRAM_BUCKETS];
+    private int seams;
+    private long maxSeamNanos;
+    private long totalNanos;
+    private long peakWorkingSetBytes;
+    private boolean cacheHit;
+    private ResizeListener listener;
+
+    public ResizeStatistics(String method, int sourceWidth, int sourceHeight, int targetWidth, int targetHeight) {
+        this.method = method;
+        this.sourceWidth = sourceWidth;
+        this.sourceHeight = sourceHeight;
+        this.targetWidth = targetWidth;
+        this.targetHeight = targetHeight;
+    }
+
+    void setListener(ResizeListener listener) {
+        this.listener = listener;
+    }
+
+    void addPhase(Phase phase, long nanos) {
+        phaseNanos[phase.ordinal()] += nanos;
+    }
+
+    void seamCompleted(long nanos) {
+        seams++;
+        maxSeamNanos = Math.max(maxSeamNanos, nanos);
+        long micros = nanos / 1000;
+        int bucket = micros <= 1 ? 0 : Math.min(63 - Long.numberOfLeadingZeros(micros), HISTOGRAM_BUCKETS - 1);
+        latencyHistogram[bucket]++;
+        if (listener != null) {
+            listener.seamCompleted(seams, nanos);
+        }
+    }
+
+    void recordWorkingSet(long bytes) {
+        peakWorkingSetBytes = Math.max(peakWorkingSetBytes, bytes);
+    }
+
+    void setTotalNanos(long totalNanos) {
+        this.totalNanos = totalNanos;
+    }
+
+    void setCacheHit(boolean cacheHit) {
+        this.cacheHit = cacheHit;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public int getSourceWidth() {
+        return sourceWidth;
+    }
+
+    public int getSourceHeight() {
+        return sourceHeight;
+    }
+
+    public int getTargetWidth() {
+        return targetWidth;
+    }
+
+    public int getTargetHeight() {
+        return targetHeight;
+    }
+
+    public long getPhaseNanos(Phase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    /**
+     * Returns the number of seams searched, including seams found on a working copy for insertion.
+     */
+    public int getSeams() {
+        return seams;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * Returns whether the result came from a {@link ResizeCache} without carving.
+     */
+    public boolean isCacheHit() {
+        return cacheHit;
+    }
+
+    public double getSeamsPerSecond() {
+        return totalNanos == 0 ? 0 : seams * 1e9 / totalNanos;
+    }
+
+    public long getMaxSeamNanos() {
+        return maxSeamNanos;
+    }
+
+    /**
+     * Returns an estimate of the largest amount of memory held at once by pixel buffers, energy maps
+     * and cost tables.
+     */
+    public long getPeakWorkingSetBytes() {
+        return peakWorkingSetBytes;
+    }
+
+    /**
+     * Returns a copy of the per-seam latency histogram; see {@link #getBucketUpperBoundNanos(int)}.
+     */
+    public long[] getLatencyHistogram() {
+        return latencyHistogram.clone();
+    }
+
+    public static long getBucketUpperBoundNanos(int bucket) {
+        return (2L << bucket) * 1000;
+    }
+
+    /**
+     * Returns the upper bound of the histogram bucket holding the given percentile of seam latencies.
+     *
+     * @param percentile A value in [0, 100].
+     */
+    public long getLatencyPercentileNanos(double percentile) {
+        long rank = (long) Math.ceil(seams * percentile / 100);
+        long count = 0;
+        for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+            count += latencyHistogram[i];
+            if (count >= rank && count > 0) {
+                return Math.min(getBucketUpperBoundNanos(i), maxSeamNanos);
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(String.format(Locale.ROOT,
+                "%s %dx%d -> %dx%d: %.1f ms, %d seams (%.0f/s, p50 %.2f ms, p99 %.2f ms), peak %.1f MB",
+                method, sourceWidth, sourceHeight, targetWidth, targetHeight, totalNanos / 1e6, seams,
+                getSeamsPerSecond(), getLatencyPercentileNanos(50) / 1e6, getLatencyPercentileNanos(99) / 1e6,
+                peakWorkingSetBytes / (1024.0 * 1024.0)));
+        if (cacheHit) {
+            builder.append(", cached");
+        }
+        for (Phase phase : Phase.values()) {
+            builder.append(String.format(Locale.ROOT, ", %s %.1f ms",
+                    phase.name().toLowerCase(Locale.ROOT), getPhaseNanos(phase) / 1e6));
+        }
+        return builder.toString();
+    }
+}
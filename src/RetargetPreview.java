@@ -0,0 +1,127 @@
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Interactive retargeting of one image, for dragging the image edges in {@link ImagePanel}.
+ * Seam removal orders ({@link SeamIndex}) are recorded once per image and direction: on a downsampled
+ * copy when the image is loaded, which makes every drag step a single small filter pass, and at full
+ * resolution once the first drag in that direction starts, which makes the final render on mouse
+ * release exact and immediate. Drags are measured against the original size, so only the dragged
+ * dimension differs from it. Height changes use an index recorded on the transposed image.
+ */
+public class RetargetPreview {
+    // Longest side of the downsampled copy used while dragging
+    private static final int PREVIEW_SIZE = 480;
+    // Narrowest retarget covered by the indices, relative to the original size
+    private static final double MIN_SCALE = 0.25;
+
+    private final BufferedImage image;
+    private final SeamCarver seamCarver = new SeamCarver();
+    private final double previewScale;
+
+    private volatile SeamIndex previewWidthIndex;
+    private volatile SeamIndex previewHeightIndex;
+    private volatile SeamIndex fullWidthIndex;
+    private volatile SeamIndex fullHeightIndex;
+
+    public RetargetPreview(BufferedImage image) {
+        this.image = image;
+        this.previewScale = Math.min(1.0, PREVIEW_SIZE / (double) Math.max(image.getWidth(), image.getHeight()));
+    }
+
+    public void setForkJoinPool(ForkJoinPool forkJoinPool) {
+        seamCarver.setForkJoinPool(forkJoinPool);
+    }
+
+    public BufferedImage getImage() {
+        return image;
+    }
+
+    /**
+     * Records the removal orders of the downsampled copy. Fast; run this when the image is loaded.
+     */
+    public void buildPreviewIndices() {
+        int width = Math.max(1, (int) Math.round(image.getWidth() * previewScale));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * previewScale));
+        BufferedImage small = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = small.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.drawImage(image, 0, 0, width, height, null);
+        g.dispose();
+
+        previewWidthIndex = buildIndex(small);
+        previewHeightIndex = buildIndex(transpose(small));
+    }
+
+    /**
+     * Records the full-resolution removal order for width or height changes, unless it is already there.
+     * Expensive; run this in the background when the first drag in that direction starts.
+     *
+     * @return The index used by {@link #render(int, int)} for that direction.
+     */
+    public SeamIndex buildFullIndex(boolean height) {
+        if (height) {
+            SeamIndex index = fullHeightIndex;
+            return (index != null) ? index : (fullHeightIndex = buildIndex(transpose(image)));
+        }
+        SeamIndex index = fullWidthIndex;
+        return (index != null) ? index : (fullWidthIndex = buildIndex(image));
+    }
+
+    public boolean isPreviewReady() {
+        return previewWidthIndex != null && previewHeightIndex != null;
+    }
+
+    /**
+     * Produces a low-resolution preview of the image retargeted to the given size.
+     * The result has to be scaled to {@code width x height} for display. When both dimensions
+     * differ from the original only the width is retargeted and the height is left to scaling.
+     *
+     * @return The preview image, or the original image when the preview indices are not ready yet.
+     */
+    public BufferedImage preview(int width, int height) {
+        if (!isPreviewReady()) {
+            return image;
+        }
+        if (width == image.getWidth() && height != image.getHeight()) {
+            SeamIndex index = previewHeightIndex;
+            return transpose(index.retarget(clamp(index, (int) Math.round(height * previewScale))));
+        }
+        SeamIndex index = previewWidthIndex;
+        return index.retarget(clamp(index, (int) Math.round(width * previewScale)));
+    }
+
+    /**
+     * Produces the exact full-resolution result for a change of one dimension.
+     *
+     * @return The retargeted image, or {@code null} when the full indices are not ready yet,
+     * both dimensions changed or the size is outside the recorded range.
+     */
+    public BufferedImage render(int width, int height) {
+        SeamIndex widthIndex = fullWidthIndex;
+        SeamIndex heightIndex = fullHeightIndex;
+        if (height == image.getHeight() && widthIndex != null && widthIndex.supportsWidth(width)) {
+            return widthIndex.retarget(width);
+        }
+        if (width == image.getWidth() && heightIndex != null && heightIndex.supportsWidth(height)) {
+            return transpose(heightIndex.retarget(height));
+        }
+        return null;
+    }
+
+    private SeamIndex buildIndex(BufferedImage source) {
+        int minWidth = Math.max(1, (int) Math.round(source.getWidth() * MIN_SCALE));
+        return seamCarver.buildSeamIndex(source, minWidth, progress -> {
+        });
+    }
+
+    private static int clamp(SeamIndex index, int width) {
+        return Math.max(index.getMinWidth(), Math.min(width, index.getMaxWidth()));
+    }
+
+    private static BufferedImage transpose(BufferedImage source) {
+        return new PixelBuffer(source, source.getWidth(), source.getHeight()).transpose().toImage();
+    }
+}
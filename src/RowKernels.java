@@ -0,0 +1,206 @@
+/**
+ * Row kernels for the two loops that visit every pixel: the dual-gradient energy of a row and the
+ * min-of-three step of the cumulative seam cost. The interior of a row runs without wrap-around or border
+ * checks, on the Vector API when the {@code jdk.incubator.vector} module is added with
+ * {@code --add-modules jdk.incubator.vector}, otherwise as branch-free scalar loops; the border columns
+ * are handled separately. The kernels produce exactly the same values and tie-breaking as the per-pixel
+ * code they replace.
+ *
+ * <p>The Vector API versions live in {@code VectorKernels} in the separate {@code src-vector} source root,
+ * the only code compiled with the module, and are loaded by name; without that class on the class path
+ * the scalar loops are used. So {@code src} builds with any JDK 21 compiler:
+ * <pre>
+ * javac -d out src/*.java
+ * javac --add-modules jdk.incubator.vector -cp out -d out src-vector/*.java
+ * </pre>
+ *
+ * <p>Enabled by default. Run with {@code -Dseamcarving.kernels=scalar}, or call {@link #setEnabled(boolean)},
+ * to use the original per-pixel code instead, e.g. to compare results or timings.
+ */
+public final class RowKernels {
+    // The Vector API kernels, or null when the module or the class is missing
+    private static final Vectorized VECTOR = loadVectorKernels();
+
+    private static volatile boolean enabled = !"scalar".equals(System.getProperty("seamcarving.kernels"));
+
+    private RowKernels() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        RowKernels.enabled = enabled;
+    }
+
+    /**
+     * Returns whether the enabled kernels run on the Vector API.
+     */
+    public static boolean isVectorized() {
+        return enabled && VECTOR != null;
+    }
+
+    private static Vectorized loadVectorKernels() {
+        // VectorKernels cannot even be linked without the module, so check before loading it
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return null;
+        }
+        try {
+            Vectorized kernels = (Vectorized) Class.forName("VectorKernels").getDeclaredConstructor().newInstance();
+            return kernels.isSupported() ? kernels : null;
+        } catch (ReflectiveOperationException | LinkageError ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Computes the dual-gradient energy of one row, with the image wrapping around at its borders.
+     *
+     * @param current   The pixels of the row, starting at {@code currentOffset}.
+     * @param up        The pixels of the row above (the last row for the first one).
+     * @param down      The pixels of the row below (the first row for the last one).
+     * @param width     The number of pixels in the row.
+     * @param gradients Scratch space of at least {@code width} entries.
+     * @param energy    Receives the energy of each pixel at indices {@code 0 .. width - 1}.
+     */
+    public static void energyRow(int[] current, int currentOffset, int[] up, int upOffset, int[] down, int downOffset,
+                                 int width, int[] gradients, double[] energy) {
+        if (width < 3) {
+            for (int x = 0; x < width; x++) {
+                energy[x] = energyAt(current, currentOffset, up, upOffset, down, downOffset, x,
+                        (x == 0) ? width - 1 : x - 1, (x == width - 1) ? 0 : x + 1);
+            }
+            return;
+        }
+
+        energy[0] = energyAt(current, currentOffset, up, upOffset, down, downOffset, 0, width - 1, 1);
+        int x = (VECTOR != null) ? VECTOR.gradients(current, currentOffset, up, upOffset, down, downOffset,
+                1, width - 1, gradients) : 1;
+        for (; x < width - 1; x++) {
+            int rgbLeft = current[currentOffset + x - 1];
+            int rgbRight = current[currentOffset + x + 1];
+            int rgbUp = up[upOffset + x];
+            int rgbDown = down[downOffset + x];
+
+            int deltaXRed = ((rgbRight >> 16) & 0xff) - ((rgbLeft >> 16) & 0xff);
+            int deltaXGreen = ((rgbRight >> 8) & 0xff) - ((rgbLeft >> 8) & 0xff);
+            int deltaXBlue = (rgbRight & 0xff) - (rgbLeft & 0xff);
+            int deltaYRed = ((rgbDown >> 16) & 0xff) - ((rgbUp >> 16) & 0xff);
+            int deltaYGreen = ((rgbDown >> 8) & 0xff) - ((rgbUp >> 8) & 0xff);
+            int deltaYBlue = (rgbDown & 0xff) - (rgbUp & 0xff);
+
+            gradients[x] = deltaXRed * deltaXRed + deltaXGreen * deltaXGreen + deltaXBlue * deltaXBlue
+                    + deltaYRed * deltaYRed + deltaYGreen * deltaYGreen + deltaYBlue * deltaYBlue;
+        }
+        for (x = 1; x < width - 1; x++) {
+            energy[x] = gradients[x];
+        }
+        energy[width - 1] = energyAt(current, currentOffset, up, upOffset, down, downOffset, width - 1, width - 2, 0);
+    }
+
+    /**
+     * Computes cells {@code from .. to} of a cumulative cost row from the row above: the energy plus the
+     * cheapest of the three upper neighbours, preferring the one straight above, then the left one.
+     * Disjoint ranges of one row may be computed concurrently.
+     *
+     * @param energy    The energy of the row, indexed by column.
+     * @param energyRow Scratch space of at least {@code width} entries, shared by the ranges of a row.
+     * @param previous  The costs of the row above, indexed by column; must not be {@code current}.
+     * @param current   Receives the costs, starting at {@code currentOffset}.
+     * @param offsets   Receives the chosen neighbour (-1, 0 or +1), starting at {@code currentOffset}.
+     * @param width     The number of cells in the row; cells outside it are never read.
+     */
+    public static void costRow(double[] energy, float[] energyRow, float[] previous, float[] current, byte[] offsets,
+                               int currentOffset, int from, int to, int width) {
+        if (from == 0) {
+            costCell(energy, previous, current, offsets, currentOffset, 0, width);
+            from = 1;
+        }
+        int last = Math.min(to, width - 2);
+        int x = from;
+        if (VECTOR != null && last >= from) {
+            for (int i = from; i <= last; i++) {
+                energyRow[i] = (float) energy[i];
+            }
+            x = VECTOR.costs(energyRow, previous, current, offsets, currentOffset, from, last + 1);
+        }
+        for (; x <= last; x++) {
+            float center = previous[x];
+            float left = previous[x - 1];
+            float right = previous[x + 1];
+
+            // 비교 결과로 값을 고르기만 하므로 분기 없이 조건부 이동으로 컴파일된다
+            byte offset = (left < center) ? (byte) -1 : (byte) 0;
+            float minEnergy = (left < center) ? left : center;
+            offset = (right < minEnergy) ? (byte) 1 : offset;
+            minEnergy = (right < minEnergy) ? right : minEnergy;
+
+            current[currentOffset + x] = (float) energy[x] + minEnergy;
+            offsets[currentOffset + x] = offset;
+        }
+        if (to == width - 1 && width > 1) {
+            costCell(energy, previous, current, offsets, currentOffset, width - 1, width);
+        }
+    }
+
+    // 가장자리 칸: 기존 스칼라 코드와 같은 순서로 비교한다
+    private static void costCell(double[] energy, float[] previous, float[] current, byte[] offsets,
+                                 int currentOffset, int x, int width) {
+        float minEnergy = previous[x];
+        byte offset = 0;
+        if (x > 0 && previous[x - 1] < minEnergy) {
+            minEnergy = previous[x - 1];
+            offset = -1;
+        }
+        if (x < width - 1 && previous[x + 1] < minEnergy) {
+            minEnergy = previous[x + 1];
+            offset = 1;
+        }
+        current[currentOffset + x] = (float) energy[x] + minEnergy;
+        offsets[currentOffset + x] = offset;
+    }
+
+    private static double energyAt(int[] current, int currentOffset, int[] up, int upOffset, int[] down, int downOffset,
+                                   int x, int left, int right) {
+        int rgbLeft = current[currentOffset + left];
+        int rgbRight = current[currentOffset + right];
+        int rgbUp = up[upOffset + x];
+        int rgbDown = down[downOffset + x];
+
+        int deltaXRed = ((rgbRight >> 16) & 0xff) - ((rgbLeft >> 16) & 0xff);
+        int deltaXGreen = ((rgbRight >> 8) & 0xff) - ((rgbLeft >> 8) & 0xff);
+        int deltaXBlue = (rgbRight & 0xff) - (rgbLeft & 0xff);
+        int deltaYRed = ((rgbDown >> 16) & 0xff) - ((rgbUp >> 16) & 0xff);
+        int deltaYGreen = ((rgbDown >> 8) & 0xff) - ((rgbUp >> 8) & 0xff);
+        int deltaYBlue = (rgbDown & 0xff) - (rgbUp & 0xff);
+
+        return deltaXRed * deltaXRed + deltaXGreen * deltaXGreen + deltaXBlue * deltaXBlue
+                + deltaYRed * deltaYRed + deltaYGreen * deltaYGreen + deltaYBlue * deltaYBlue;
+    }
+
+    /**
+     * The interior loops on the Vector API, implemented by {@code VectorKernels}.
+     */
+    interface Vectorized {
+        /**
+         * Returns whether the platform has vectors wide enough for both kernels; narrower ones are not worth it.
+         */
+        boolean isSupported();
+
+        /**
+         * Computes the squared gradients of columns {@code from} up to the last whole vector before {@code to}
+         * and returns the first column left for the caller.
+         */
+        int gradients(int[] current, int currentOffset, int[] up, int upOffset, int[] down, int downOffset,
+                      int from, int to, int[] gradients);
+
+        /**
+         * Computes cost cells {@code from} up to the last whole vector before {@code to} from a separate copy
+         * of the row above and returns the first column left for the caller. Needs {@code from >= 1} and
+         * {@code to <= width - 1} so that the shifted loads stay inside the row.
+         */
+        int costs(float[] energy, float[] previous, float[] current, byte[] offsets, int currentOffset,
+                  int from, int to);
+    }
+}
@@ -1,438 +1,593 @@
 import java.awt.image.BufferedImage;
-import java.util.ArrayList;
+import java.awt.image.ColorModel;
 import java.util.Arrays;
-import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Consumer;
 
 public class SeamCarver {
-    private EnergyCalculator energyCalculator = new EnergyCalculator();
-
-    // 기존의 시임 카빙 알고리즘을 사용하는 너비 조정 메서드
-    public BufferedImage resizeWidthStandard(BufferedImage image, int deltaWidth, Consumer<Integer> progressCallback) {
-        int sign = Integer.signum(deltaWidth);
-        deltaWidth = Math.abs(deltaWidth);
-
-        BufferedImage resultImage = image;
+    private EnergyFunction energyFunction = new EnergyCalculator();
+    private ForkJoinPool forkJoinPool;
+    // 피라미드 탐색의 축소 배율과 정제 밴드 폭 (경로 양쪽으로 탐색할 픽셀 수)
+    private int pyramidFactor = 4;
+    private int pyramidBandWidth = 4;
+    private ResizeStatistics statistics;
+    private CarvingWorkspace workspace;
+    private int seamsPerPass = 1;
+    private FrameSequence frameSequence;
+    // findVerticalSeam/findHorizontalSeam이 함께 쓰는 탐색기와 전치 에너지 배열
+    private final SeamFinder searchFinder = new SeamFinder();
+    private double[][] transposedEnergy;
+
+    // 큰 이미지의 에너지/DP 계산을 나눠 실행할 풀 (null이면 호출 스레드에서 직렬 실행)
+    public void setForkJoinPool(ForkJoinPool forkJoinPool) {
+        this.forkJoinPool = forkJoinPool;
+        energyFunction.setForkJoinPool(forkJoinPool);
+    }
 
-        if (sign < 0) {
-            // Width decrease: Remove seams
-            for (int i = 0; i < deltaWidth; i++) {
-                double[][] energy = energyCalculator.computeEnergy(resultImage);
-                int[] seam = findVerticalSeam(energy);
-                resultImage = removeVerticalSeam(resultImage, seam);
-                progressCallback.accept(1); // Increment progress by 1 per seam
-            }
-        } else if (sign > 0) {
-            // Width increase: Insert seams one by one
-            for (int i = 0; i < deltaWidth; i++) {
-                double[][] energy = energyCalculator.computeEnergy(resultImage);
-                int[] seam = findVerticalSeam(energy);
-                resultImage = insertVerticalSeam(resultImage, seam);
-                progressCallback.accept(1); // Increment progress by 1 per seam
-            }
+    // 표준/피라미드 방식이 쓰는 에너지 함수. 이미지별 상태를 가질 수 있으므로 다른 카버와 공유하지 않는다
+    public void setEnergyFunction(EnergyFunction energyFunction) {
+        if (energyFunction == null) {
+            throw new IllegalArgumentException("Energy function must not be null");
         }
-
-        return resultImage;
+        energyFunction.setForkJoinPool(forkJoinPool);
+        this.energyFunction = energyFunction;
     }
 
+    public ForkJoinPool getForkJoinPool() {
+        return forkJoinPool;
+    }
 
-    // 시임 삽입 위치를 강제로 지정하는 너비 조정 메서드
-    public BufferedImage resizeWidthForced(BufferedImage image, int deltaWidth, Consumer<Integer> progressCallback) {
-        int sign = Integer.signum(deltaWidth);
-        deltaWidth = Math.abs(deltaWidth);
+    public EnergyFunction getEnergyFunction() {
+        return energyFunction;
+    }
 
-        BufferedImage resultImage = image;
+    // 단계별 시간, 시임별 지연, 최대 작업 메모리를 기록할 통계 (null이면 기록하지 않음)
+    public void setStatistics(ResizeStatistics statistics) {
+        this.statistics = statistics;
+    }
 
-        for (int i = 0; i < deltaWidth; i++) {
-            if (sign > 0) {
-                // 너비 증가: 좌우 가장자리에서 시임 삽입
-                int position = (i % 2 == 0) ? 0 : resultImage.getWidth() - 1;
-                resultImage = insertVerticalSeamAtPosition(resultImage, position);
-            } else {
-                // 너비 감소: 좌우 가장자리에서 시임 제거
-                int position = (i % 2 == 0) ? 0 : resultImage.getWidth() - 1;
-                resultImage = removeVerticalSeamAtPosition(resultImage, position);
-            }
+    // 에너지 맵, DP 테이블, 시임 배열, 작업 버퍼를 시임마다 새로 만들지 않도록 재사용할 작업 공간.
+    // null이거나 버퍼보다 작으면 변환 호출마다 임시 작업 공간을 만든다.
+    public void setWorkspace(CarvingWorkspace workspace) {
+        this.workspace = workspace;
+    }
 
-            // 진행 상황 업데이트
-            progressCallback.accept(1);
+    // 표준 방식으로 축소할 때 DP 한 번에 제거할 시임 수. 1이면 매번 최소 시임을 찾는 정확한 방식이고,
+    // 그보다 크면 한 패스의 누적 비용에서 겹치지 않는 시임을 여럿 골라 패스 수를 그만큼 줄이는 근사 방식이다.
+    // 확대, 시임 인덱스, 피라미드 방식은 항상 한 번에 하나씩 찾는다.
+    public void setSeamsPerPass(int seamsPerPass) {
+        if (seamsPerPass < 1) {
+            throw new IllegalArgumentException("Seams per pass must be at least 1: " + seamsPerPass);
         }
+        this.seamsPerPass = seamsPerPass;
+    }
 
-        return resultImage;
+    public int getSeamsPerPass() {
+        return seamsPerPass;
     }
 
-    // 높이 조정 메서드들도 동일하게 구현
-    public BufferedImage resizeHeightStandard(BufferedImage image, int deltaHeight, Consumer<Integer> progressCallback) {
-        int sign = Integer.signum(deltaHeight);
-        deltaHeight = Math.abs(deltaHeight);
+    // 이미지 시퀀스의 다음 프레임으로 변환한다: 표준/피라미드 방식의 에너지는 이전 프레임과 달라진 픽셀만 다시 계산하고,
+    // 시임은 이전 프레임의 같은 시임 주변에서 찾는다 (null이면 이미지마다 처음부터 분석한다)
+    public void setFrameSequence(FrameSequence frameSequence) {
+        this.frameSequence = frameSequence;
+    }
 
-        BufferedImage resultImage = image;
+    public FrameSequence getFrameSequence() {
+        return frameSequence;
+    }
 
-        if (sign < 0) {
-            // Height decrease: Remove seams
-            for (int i = 0; i < deltaHeight; i++) {
-                double[][] energy = energyCalculator.computeEnergy(resultImage);
-                int[] seam = findHorizontalSeam(energy);
-                resultImage = removeHorizontalSeam(resultImage, seam);
-                progressCallback.accept(1); // Increment by 1 per seam
-            }
-        } else if (sign > 0) {
-            // Height increase: Insert seams one by one
-            for (int i = 0; i < deltaHeight; i++) {
-                double[][] energy = energyCalculator.computeEnergy(resultImage);
-                int[] seam = findHorizontalSeam(energy);
-                resultImage = insertHorizontalSeam(resultImage, seam);
-                progressCallback.accept(1); // Increment by 1 per seam
-            }
+    public void setPyramidFactor(int pyramidFactor) {
+        if (pyramidFactor < 2) {
+            throw new IllegalArgumentException("Pyramid factor must be at least 2: " + pyramidFactor);
         }
-
-        return resultImage;
+        this.pyramidFactor = pyramidFactor;
     }
 
+    public void setPyramidBandWidth(int pyramidBandWidth) {
+        if (pyramidBandWidth < 1) {
+            throw new IllegalArgumentException("Pyramid band width must be at least 1: " + pyramidBandWidth);
+        }
+        this.pyramidBandWidth = pyramidBandWidth;
+    }
 
-    public BufferedImage resizeHeightForced(BufferedImage image, int deltaHeight, Consumer<Integer> progressCallback) {
-        int sign = Integer.signum(deltaHeight);
-        deltaHeight = Math.abs(deltaHeight);
+    public int getPyramidFactor() {
+        return pyramidFactor;
+    }
 
-        BufferedImage resultImage = image;
+    public int getPyramidBandWidth() {
+        return pyramidBandWidth;
+    }
 
-        for (int i = 0; i < deltaHeight; i++) {
-            if (sign > 0) {
-                // 높이 증가: 상하 가장자리에서 시임 삽입
-                int position = (i % 2 == 0) ? 0 : resultImage.getHeight() - 1;
-                resultImage = insertHorizontalSeamAtPosition(resultImage, position);
-            } else {
-                // 높이 감소: 상하 가장자리에서 시임 제거
-                int position = (i % 2 == 0) ? 0 : resultImage.getHeight() - 1;
-                resultImage = removeHorizontalSeamAtPosition(resultImage, position);
-            }
-            progressCallback.accept(1);
-        }
+    // 표준/피라미드 방식이 쓰는 에너지 함수 이름 (캐시 키용)
+    public String getEnergyName() {
+        return energyFunction.getName();
+    }
 
-        return resultImage;
+    public int getEnergyVersion() {
+        return energyFunction.getVersion();
     }
 
+    // 기존의 시임 카빙 알고리즘을 사용하는 너비 조정 메서드
+    public BufferedImage resizeWidthStandard(BufferedImage image, int deltaWidth, Consumer<Integer> progressCallback) {
+        PixelBuffer buffer = new PixelBuffer(image, image.getWidth() + Math.max(deltaWidth, 0), image.getHeight());
+        resizeWidthStandard(buffer, deltaWidth, progressCallback);
+        return buffer.toImage();
+    }
 
-    public BufferedImage insertVerticalSeam(BufferedImage image, int[] seam) {
-        int width = image.getWidth();
-        int height = image.getHeight();
-        BufferedImage output = new BufferedImage(width + 1, height, BufferedImage.TYPE_INT_ARGB);
+    // 작업 버퍼 위에서 시임을 제자리에서 제거/삽입하는 너비 조정 메서드
+    public void resizeWidthStandard(PixelBuffer buffer, int deltaWidth, Consumer<Integer> progressCallback) {
+        resizeWidth(buffer, deltaWidth, false, progressCallback);
+    }
 
-        for (int y = 0; y < height; y++) {
-            int newX = 0;
-            for (int x = 0; x < width; x++) {
-                output.setRGB(newX++, y, image.getRGB(x, y));
-                if (x == seam[y]) {
-                    // Insert a new pixel by averaging the current and next pixel
-                    int rgb1 = image.getRGB(x, y);
-                    int rgb2 = (x < width - 1) ? image.getRGB(x + 1, y) : image.getRGB(x, y);
-                    int newRGB = averageColor(rgb1, rgb2);
-                    output.setRGB(newX++, y, newRGB);
-                }
-            }
-        }
+    // 축소한 에너지 맵에서 찾은 경로를 원본 해상도의 좁은 밴드 안에서 다듬는 근사 탐색으로 너비 조정
+    public BufferedImage resizeWidthPyramid(BufferedImage image, int deltaWidth, Consumer<Integer> progressCallback) {
+        PixelBuffer buffer = new PixelBuffer(image, image.getWidth() + Math.max(deltaWidth, 0), image.getHeight());
+        resizeWidthPyramid(buffer, deltaWidth, progressCallback);
+        return buffer.toImage();
+    }
 
-        return output;
+    public void resizeWidthPyramid(PixelBuffer buffer, int deltaWidth, Consumer<Integer> progressCallback) {
+        resizeWidth(buffer, deltaWidth, true, progressCallback);
     }
 
+    private void resizeWidth(PixelBuffer buffer, int deltaWidth, boolean pyramid, Consumer<Integer> progressCallback) {
+        resizeWidth(buffer, deltaWidth, pyramid, workspaceFor(buffer), progressCallback);
+    }
 
-    public BufferedImage insertHorizontalSeam(BufferedImage image, int[] seam) {
-        int width = image.getWidth();
-        int height = image.getHeight();
-        BufferedImage output = new BufferedImage(width, height + 1, BufferedImage.TYPE_INT_ARGB);
+    private void resizeWidth(PixelBuffer buffer, int deltaWidth, boolean pyramid, CarvingWorkspace workspace,
+                             Consumer<Integer> progressCallback) {
+        int sign = Integer.signum(deltaWidth);
+        deltaWidth = Math.abs(deltaWidth);
 
-        for (int x = 0; x < width; x++) {
-            int newY = 0;
-            for (int y = 0; y < height; y++) {
-                output.setRGB(x, newY++, image.getRGB(x, y));
-                if (y == seam[x]) {
-                    // Insert a new pixel by averaging the current and next pixel
-                    int rgb1 = image.getRGB(x, y);
-                    int rgb2 = (y < height - 1) ? image.getRGB(x, y + 1) : image.getRGB(x, y);
-                    int newRGB = averageColor(rgb1, rgb2);
-                    output.setRGB(x, newY++, newRGB);
-                }
+        if (sign < 0) {
+            // Width decrease: Remove seams
+            removeSeams(buffer, deltaWidth, seamFinder(buffer, workspace, pyramid), workspace, false, 0, progressCallback);
+        } else if (sign > 0) {
+            // Width increase: 작업 사본에서 제거할 시임 k개를 찾은 뒤 원본에 한 번에 삽입
+            // 한 번에 찾을 수 있는 시임은 최대 (너비 - 1)개이므로 그보다 많으면 여러 번에 나눈다
+            while (deltaWidth > 0) {
+                int width = buffer.getWidth();
+                int height = buffer.getHeight();
+                int count = Math.min(deltaWidth, Math.max(width - 1, 1));
+                long start = System.nanoTime();
+                PixelBuffer copy = buffer.copyInto(workspace.pixels(CarvingWorkspace.COPY));
+                recordPhase(ResizeStatistics.Phase.CONVERSION, start);
+                int[][] seams = removeSeams(copy, count, seamFinder(copy, workspace, pyramid), workspace, true,
+                        buffer.getSizeInBytes(), progressCallback);
+
+                start = System.nanoTime();
+                mapSeamsToOriginal(seams, count, width, height, workspace.scratch(width + 1));
+                adjustSeamsForInsertion(seams, count, width, height, workspace.scratch(width + 1));
+                insertSeams(buffer, seams, count, workspace.marker(width + count));
+                recordPhase(ResizeStatistics.Phase.COMPACTION, start);
+                deltaWidth -= count;
             }
         }
-
-        return output;
     }
 
-
-    public BufferedImage insertVerticalSeamAtPosition(BufferedImage image, int position) {
+    // 이미지를 최소 너비까지 한 번 깎으면서 각 픽셀이 몇 번째 시임으로 제거되는지 기록한다.
+    // 이후 그 사이의 어떤 너비든 SeamIndex.retarget으로 시임 탐색 없이 바로 만들 수 있다.
+    public SeamIndex buildSeamIndex(BufferedImage image, int minWidth, Consumer<Integer> progressCallback) {
         int width = image.getWidth();
         int height = image.getHeight();
-        BufferedImage output = new BufferedImage(width + 1, height, image.getType());
-
-        for (int y = 0; y < height; y++) {
-            int newX = 0;
-            for (int x = 0; x <= width; x++) {
-                if (x == position) {
-                    // 시임 삽입
-                    int rgb1 = image.getRGB(Math.min(x, width - 1), y);
-                    int rgb2 = image.getRGB(Math.max(x - 1, 0), y);
-                    int newRGB = averageColor(rgb1, rgb2);
-                    output.setRGB(newX++, y, newRGB);
-                }
-                if (x < width) {
-                    output.setRGB(newX++, y, image.getRGB(x, y));
-                }
+        minWidth = Math.max(1, Math.min(minWidth, width));
+        int count = width - minWidth;
+
+        // 원본 픽셀은 인덱스가 계속 들고 있으므로 작업 공간이 아닌 별도 버퍼에 둔다
+        PixelBuffer buffer = new PixelBuffer(image, width, height);
+        CarvingWorkspace workspace = workspaceFor(buffer);
+        PixelBuffer copy = buffer.copyInto(workspace.pixels(CarvingWorkspace.COPY));
+        int[][] seams = removeSeams(copy, count, seamFinder(copy, workspace, false), workspace, true,
+                buffer.getSizeInBytes(), progressCallback);
+        mapSeamsToOriginal(seams, count, width, height, workspace.scratch(width + 1));
+
+        int[] order = new int[width * height];
+        Arrays.fill(order, SeamIndex.KEPT);
+        for (int i = 0; i < count; i++) {
+            int[] seam = seams[i];
+            for (int y = 0; y < height; y++) {
+                order[y * width + seam[y]] = i;
             }
         }
 
-        return output;
+        return new SeamIndex(buffer.getPixels(), order, width, height, minWidth);
     }
 
-    public BufferedImage removeVerticalSeamAtPosition(BufferedImage image, int position) {
-        int width = image.getWidth();
-        int height = image.getHeight();
-        BufferedImage output = new BufferedImage(width - 1, height, image.getType());
-
-        for (int y = 0; y < height; y++) {
-            int newX = 0;
-            for (int x = 0; x < width; x++) {
-                if (x != position) {
-                    output.setRGB(newX++, y, image.getRGB(x, y));
+    // 버퍼에서 시임을 하나씩 제거한다. keepSeams이면 제거한 시임을 (그 시점의 좌표로) 순서대로
+    // 작업 공간의 시임 배열에 남기고, 아니면 한 줄짜리 배열을 계속 재사용한다.
+    // 표준 방식의 축소(keepSeams가 아닐 때)는 DP 한 번에 seamsPerPass개까지 시임을 제거한다.
+    // 프레임 시퀀스에서는 시임마다 다음 프레임의 안내가 되도록 항상 하나씩 제거한다.
+    // 시임은 찾는 즉시 버퍼에서 당겨 없앤다. 행마다 살아 있는 열을 기록해 두고 마지막에 한 번만
+    // 압축하는 방식은 에너지/DP가 매번 간접 참조를 거쳐야 해서 오히려 느렸다.
+    // retainedBytes: 호출자가 그동안 따로 들고 있는 버퍼 크기 (최대 작업 메모리 집계용)
+    private int[][] removeSeams(PixelBuffer buffer, int count, SeamFinder seamFinder, CarvingWorkspace workspace,
+                                boolean keepSeams, long retainedBytes, Consumer<Integer> progressCallback) {
+        int perPass = (keepSeams || seamFinder instanceof PyramidSeamFinder || seamFinder instanceof TemporalSeamFinder)
+                ? 1 : Math.min(seamsPerPass, count);
+        int[][] seams = workspace.seams(keepSeams ? count : perPass, buffer.getHeight());
+        long start = System.nanoTime();
+        double[][] energyMap = workspace.energy(buffer.getCapacityHeight(), buffer.getStride());
+        double[][] energy = (frameSequence != null)
+                ? frameSequence.computeEnergy(energyFunction, buffer, energyMap, forkJoinPool)
+                : energyFunction.computeEnergy(buffer, energyMap);
+        seamFinder.setStepCosts(energyFunction.getLeftStepCosts(), energyFunction.getRightStepCosts());
+        recordPhase(ResizeStatistics.Phase.ENERGY, start);
+        for (int i = 0; i < count; ) {
+            checkCancelled();
+            SeamEvent event = SeamEvent.isTypeEnabled() ? new SeamEvent() : null;
+            if (event != null) {
+                event.begin();
+            }
+            long seamStart = System.nanoTime();
+
+            int found = 1;
+            long time;
+            if (perPass > 1) {
+                // 한 번의 DP에서 겹치지 않는 시임 여러 개를 찾아 오른쪽부터 제거하면 왼쪽 시임의 좌표는 그대로다
+                found = seamFinder.findSeams(energy, buffer.getWidth(), buffer.getHeight(), seams,
+                        Math.min(perPass, count - i));
+                time = System.nanoTime();
+                for (int j = found - 1; j >= 0; j--) {
+                    buffer.removeVerticalSeam(seams[j]);
+                    time = recordPhase(ResizeStatistics.Phase.COMPACTION, time);
+                    energyFunction.updateEnergyAfterVerticalRemoval(buffer, energy, seams[j]);
+                    time = recordPhase(ResizeStatistics.Phase.ENERGY, time);
                 }
+                seamFinder.invalidate();
+            } else {
+                int[] seam = seamFinder.findSeam(energy, buffer.getWidth(), buffer.getHeight(), seams[keepSeams ? i : 0]);
+                time = System.nanoTime();
+                buffer.removeVerticalSeam(seam);
+                time = recordPhase(ResizeStatistics.Phase.COMPACTION, time);
+                energyFunction.updateEnergyAfterVerticalRemoval(buffer, energy, seam);
+                time = recordPhase(ResizeStatistics.Phase.ENERGY, time);
+                seamFinder.seamRemoved(seam, buffer.getWidth(), buffer.getHeight());
+                time = recordPhase(ResizeStatistics.Phase.COMPACTION, time);
             }
-        }
-
-        return output;
-    }
 
-    public BufferedImage insertHorizontalSeamAtPosition(BufferedImage image, int position) {
-        int width = image.getWidth();
-        int height = image.getHeight();
-        BufferedImage output = new BufferedImage(width, height + 1, image.getType());
-
-        for (int x = 0; x < width; x++) {
-            int newY = 0;
-            for (int y = 0; y <= height; y++) {
-                if (y == position) {
-                    // 시임 삽입
-                    int rgb1 = image.getRGB(x, Math.min(y, height - 1));
-                    int rgb2 = image.getRGB(x, Math.max(y - 1, 0));
-                    int newRGB = averageColor(rgb1, rgb2);
-                    output.setRGB(x, newY++, newRGB);
+            if (statistics != null) {
+                if (i == 0) {
+                    long energyBytes = (long) energy.length * energy[0].length * Double.BYTES + energyFunction.getSizeInBytes();
+                    statistics.recordWorkingSet(retainedBytes + buffer.getSizeInBytes() + energyBytes + seamFinder.getTableBytes());
                 }
-                if (y < height) {
-                    output.setRGB(x, newY++, image.getRGB(x, y));
+                // 한 번에 제거한 시임들은 걸린 시간을 똑같이 나눠 기록한다
+                for (int j = 0; j < found; j++) {
+                    statistics.seamCompleted((time - seamStart) / found);
                 }
             }
+            if (event != null && event.shouldCommit()) {
+                event.width = buffer.getWidth();
+                event.height = buffer.getHeight();
+                event.pyramid = seamFinder instanceof PyramidSeamFinder;
+                event.commit();
+            }
+            i += found;
+            progressCallback.accept(found); // Increment progress by 1 per removed seam
         }
+        return seams;
+    }
 
-        return output;
+    // buffer: 이번 패스에서 시임을 찾을 버퍼 (프레임 시퀀스는 버퍼 모양별로 이전 프레임의 시임을 기억한다)
+    private SeamFinder seamFinder(PixelBuffer buffer, CarvingWorkspace workspace, boolean pyramid) {
+        SeamFinder seamFinder = (frameSequence != null) ? frameSequence.beginPass(buffer)
+                : pyramid ? workspace.pyramidFinder(pyramidFactor, pyramidBandWidth) : workspace.seamFinder();
+        seamFinder.setForkJoinPool(forkJoinPool);
+        seamFinder.setStatistics(statistics);
+        return seamFinder;
     }
 
-    public BufferedImage removeHorizontalSeamAtPosition(BufferedImage image, int position) {
-        int width = image.getWidth();
-        int height = image.getHeight();
-        BufferedImage output = new BufferedImage(width, height - 1, image.getType());
+    // 버퍼 용량에 맞는 작업 공간: 지정된 것이 충분하면 그것을, 아니면 이번 호출에서만 쓸 것을 만든다
+    private CarvingWorkspace workspaceFor(PixelBuffer buffer) {
+        if (workspace != null && workspace.fits(buffer.getStride(), buffer.getCapacityHeight())) {
+            return workspace;
+        }
+        return new CarvingWorkspace(buffer.getStride(), buffer.getCapacityHeight());
+    }
 
-        for (int x = 0; x < width; x++) {
-            int newY = 0;
-            for (int y = 0; y < height; y++) {
-                if (y != position) {
-                    output.setRGB(x, newY++, image.getRGB(x, y));
-                }
-            }
+    // 작업 스레드가 인터럽트되었으면 (SwingWorker.cancel(true), ExecutorService.shutdownNow 등) 변환을 중단한다.
+    // 시임 사이와 긴 DP 패스의 일정 행마다 호출되며, 인터럽트 상태는 그대로 둔다.
+    static void checkCancelled() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Resize cancelled");
         }
+    }
 
-        return output;
+    // 지난 시각부터의 경과 시간을 통계에 더하고 현재 시각을 돌려준다
+    private long recordPhase(ResizeStatistics.Phase phase, long since) {
+        long now = System.nanoTime();
+        if (statistics != null) {
+            statistics.addPhase(phase, now - since);
+        }
+        return now;
     }
 
-    public int[] findVerticalSeam(double[][] energy) {
-        int height = energy.length;
-        int width = energy[0].length;
-        double[][] dp = new double[height][width];
-        int[][] backtrack = new int[height][width];
+    // 시임 삽입 위치를 강제로 지정하는 너비 조정 메서드.
+    // 좌우 가장자리에서 번갈아(왼쪽부터) 한 열씩 제거/삽입한 것과 같은 결과를 한 번의 복사로 만든다.
+    public BufferedImage resizeWidthForced(BufferedImage image, int deltaWidth, Consumer<Integer> progressCallback) {
+        return resizeForced(image, deltaWidth, true, progressCallback);
+    }
 
-        // 첫 번째 행 초기화
-        System.arraycopy(energy[0], 0, dp[0], 0, width);
+    // 높이 조정 메서드들도 동일하게 구현
+    public BufferedImage resizeHeightStandard(BufferedImage image, int deltaHeight, Consumer<Integer> progressCallback) {
+        PixelBuffer buffer = new PixelBuffer(image, image.getWidth(), image.getHeight() + Math.max(deltaHeight, 0));
+        resizeHeightStandard(buffer, deltaHeight, progressCallback);
+        return buffer.toImage();
+    }
 
-        // DP와 백트랙 배열 채우기
-        for (int y = 1; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                double minEnergy = dp[y - 1][x];
-                int idx = x;
+    // 높이 조정은 전치된 버퍼에서 수직 시임 카빙으로 처리해 행 우선 순회를 유지한다
+    public void resizeHeightStandard(PixelBuffer buffer, int deltaHeight, Consumer<Integer> progressCallback) {
+        resizeHeight(buffer, deltaHeight, false, progressCallback);
+    }
 
-                if (x > 0 && dp[y - 1][x - 1] < minEnergy) {
-                    minEnergy = dp[y - 1][x - 1];
-                    idx = x - 1;
-                }
-                if (x < width - 1 && dp[y - 1][x + 1] < minEnergy) {
-                    minEnergy = dp[y - 1][x + 1];
-                    idx = x + 1;
-                }
 
-                dp[y][x] = energy[y][x] + minEnergy;
-                backtrack[y][x] = idx;
-            }
-        }
+    public BufferedImage resizeHeightPyramid(BufferedImage image, int deltaHeight, Consumer<Integer> progressCallback) {
+        PixelBuffer buffer = new PixelBuffer(image, image.getWidth(), image.getHeight() + Math.max(deltaHeight, 0));
+        resizeHeightPyramid(buffer, deltaHeight, progressCallback);
+        return buffer.toImage();
+    }
 
-        // 최소 에너지 시임 찾기
-        double minTotalEnergy = Double.POSITIVE_INFINITY;
-        int minIndex = -1;
-        for (int x = 0; x < width; x++) {
-            if (dp[height - 1][x] < minTotalEnergy) {
-                minTotalEnergy = dp[height - 1][x];
-                minIndex = x;
-            }
-        }
+    public void resizeHeightPyramid(PixelBuffer buffer, int deltaHeight, Consumer<Integer> progressCallback) {
+        resizeHeight(buffer, deltaHeight, true, progressCallback);
+    }
 
-        // 시임 경로 백트랙
-        int[] seam = new int[height];
-        seam[height - 1] = minIndex;
-        for (int y = height - 1; y > 0; y--) {
-            seam[y - 1] = backtrack[y][seam[y]];
+    private void resizeHeight(PixelBuffer buffer, int deltaHeight, boolean pyramid, Consumer<Integer> progressCallback) {
+        if (deltaHeight == 0) {
+            return;
         }
-        return seam;
+        CarvingWorkspace workspace = workspaceFor(buffer);
+        long start = System.nanoTime();
+        PixelBuffer transposed = buffer.transposeInto(workspace.pixels(CarvingWorkspace.TRANSPOSED));
+        recordPhase(ResizeStatistics.Phase.CONVERSION, start);
+        resizeWidth(transposed, deltaHeight, pyramid, workspace, progressCallback);
+        start = System.nanoTime();
+        buffer.transposeFrom(transposed);
+        recordPhase(ResizeStatistics.Phase.CONVERSION, start);
     }
 
-    public int[] findHorizontalSeam(double[][] energy) {
-        int height = energy.length;
-        int width = energy[0].length;
-        double[][] dp = new double[height][width];
-        int[][] backtrack = new int[height][width];
+    // 상하 가장자리에서 번갈아(위쪽부터) 한 행씩 제거/삽입한 것과 같은 결과를 한 번의 복사로 만든다
+    public BufferedImage resizeHeightForced(BufferedImage image, int deltaHeight, Consumer<Integer> progressCallback) {
+        return resizeForced(image, deltaHeight, false, progressCallback);
+    }
 
-        // 첫 번째 열 초기화
-        for (int y = 0; y < height; y++) {
-            dp[y][0] = energy[y][0];
+    // 강제 위치 방식의 공통 구현. vertical이면 열(너비), 아니면 행(높이)을 "줄"로 다룬다.
+    // 짝수 번째 시임은 앞쪽(왼쪽/위쪽), 홀수 번째는 뒤쪽 가장자리에 놓이므로 앞쪽이 ceil(n/2)개, 뒤쪽이 floor(n/2)개다.
+    // - 제거: 가운데 남는 줄만 복사한다.
+    // - 삽입: 앞쪽에는 첫 줄 자신과의 평균(= 불투명하게 만든 첫 줄)이 쌓이고, 뒤쪽에는 마지막 줄 바로 앞에
+    //   a(k) = avg(마지막 줄, a(k-1))이 차례로 쌓인다. a(0)은 마지막에서 두 번째 줄이며, 줄이 하나뿐이면
+    //   그보다 먼저 삽입된 앞쪽 줄이다. 한 단계씩 처리할 때처럼 이전 단계 이미지에서 다시 읽은 값,
+    //   즉 출력 형식의 색 모델을 한 번 거친 값으로 평균을 구한다.
+    // 출력 형식은 입력과 같고, 형식을 알 수 없는(TYPE_CUSTOM) 이미지는 ARGB로 만든다.
+    private BufferedImage resizeForced(BufferedImage image, int delta, boolean vertical, Consumer<Integer> progressCallback) {
+        if (delta == 0) {
+            return image;
         }
+        checkCancelled();
+        long start = System.nanoTime();
 
-        // DP와 백트랙 배열 채우기
-        for (int x = 1; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                double minEnergy = dp[y][x - 1];
-                int idx = y;
-
-                if (y > 0 && dp[y - 1][x - 1] < minEnergy) {
-                    minEnergy = dp[y - 1][x - 1];
-                    idx = y - 1;
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int lines = vertical ? width : height;
+        int count = Math.abs(delta);
+        int before = (count + 1) / 2;
+        int after = count / 2;
+        int newLines = lines + delta;
+        int type = (image.getType() == BufferedImage.TYPE_CUSTOM) ? BufferedImage.TYPE_INT_ARGB : image.getType();
+        BufferedImage output = vertical ? new BufferedImage(newLines, height, type) : new BufferedImage(width, newLines, type);
+
+        if (delta < 0) {
+            copyLines(image, before, output, 0, newLines, vertical);
+        } else {
+            int positions = vertical ? height : width;
+            ColorModel colorModel = output.getColorModel();
+            Object pixel = null;
+            int[] first = readLine(image, 0, vertical);
+            int[] last = readLine(image, lines - 1, vertical);
+            int[] beforeLast = (lines >= 2) ? readLine(image, lines - 2, vertical) : null;
+
+            // 앞쪽: 첫 줄을 불투명하게 만든 값
+            int[] pads = new int[Math.max(before, after) * positions];
+            for (int p = 0; p < positions; p++) {
+                int pad = averageColor(first[p], first[p]);
+                for (int i = 0; i < before; i++) {
+                    pads[index(i, p, before, positions, vertical)] = pad;
                 }
-                if (y < height - 1 && dp[y + 1][x - 1] < minEnergy) {
-                    minEnergy = dp[y + 1][x - 1];
-                    idx = y + 1;
+            }
+            writeLines(output, 0, before, pads, vertical);
+            copyLines(image, 0, output, before, lines - 1, vertical);
+
+            // 뒤쪽: 마지막 줄 앞에 쌓이는 평균들
+            if (after > 0) {
+                for (int p = 0; p < positions; p++) {
+                    int previous = (beforeLast != null) ? beforeLast[p] : averageColor(first[p], first[p]);
+                    pixel = colorModel.getDataElements(last[p], pixel);
+                    int lastColor = colorModel.getRGB(pixel);
+                    for (int i = 0; i < after; i++) {
+                        pixel = colorModel.getDataElements(previous, pixel);
+                        previous = averageColor(lastColor, colorModel.getRGB(pixel));
+                        pads[index(i, p, after, positions, vertical)] = previous;
+                    }
                 }
-
-                dp[y][x] = energy[y][x] + minEnergy;
-                backtrack[y][x] = idx;
+                writeLines(output, before + lines - 1, after, pads, vertical);
             }
+            copyLines(image, lines - 1, output, newLines - 1, 1, vertical);
         }
 
-        // 최소 에너지 시임 찾기
-        double minTotalEnergy = Double.POSITIVE_INFINITY;
-        int minIndex = -1;
-        for (int y = 0; y < height; y++) {
-            if (dp[y][width - 1] < minTotalEnergy) {
-                minTotalEnergy = dp[y][width - 1];
-                minIndex = y;
+        // 탐색이 없으므로 모든 시간을 압축 단계로 기록하고, 시임마다 똑같이 나눈다
+        if (statistics != null) {
+            long time = System.nanoTime() - start;
+            statistics.addPhase(ResizeStatistics.Phase.COMPACTION, time);
+            statistics.recordWorkingSet(((long) width * height + (long) output.getWidth() * output.getHeight()) * Integer.BYTES);
+            for (int i = 0; i < count; i++) {
+                statistics.seamCompleted(time / count);
             }
         }
+        progressCallback.accept(count);
+        return output;
+    }
 
-        // 시임 경로 백트랙
-        int[] seam = new int[width];
-        seam[width - 1] = minIndex;
-        for (int x = width - 1; x > 0; x--) {
-            seam[x - 1] = backtrack[seam[x]][x];
+    // 원본의 줄 [from, from + count)를 출력의 toLine부터 복사한다. 같은 형식이고 색 변환이 손실 없는
+    // 형식이면 래스터 데이터를 그대로, 아니면 한 단계씩 처리할 때처럼 ARGB를 거쳐 사각형 단위로 복사한다.
+    private static void copyLines(BufferedImage source, int from, BufferedImage target, int toLine, int count,
+                                  boolean vertical) {
+        if (count <= 0) {
+            return;
+        }
+        int width = vertical ? count : source.getWidth();
+        int height = vertical ? source.getHeight() : count;
+        int x = vertical ? from : 0;
+        int y = vertical ? 0 : from;
+        int targetX = vertical ? toLine : 0;
+        int targetY = vertical ? 0 : toLine;
+
+        if (source.getType() == target.getType() && isLosslessType(source.getType())) {
+            target.getRaster().setDataElements(targetX, targetY, source.getRaster().createChild(x, y, width, height, 0, 0, null));
+        } else {
+            int[] rgb = source.getRGB(x, y, width, height, null, 0, width);
+            target.setRGB(targetX, targetY, width, height, rgb, 0, width);
         }
-        return seam;
     }
 
-    public BufferedImage removeVerticalSeam(BufferedImage image, int[] seam) {
-        int width = image.getWidth();
-        int height = image.getHeight();
-        BufferedImage output = new BufferedImage(width - 1, height, BufferedImage.TYPE_INT_ARGB);
+    // 형식별 getRGB/setRGB 변환이 데이터를 바꾸지 않는 형식
+    private static boolean isLosslessType(int type) {
+        return type == BufferedImage.TYPE_INT_RGB || type == BufferedImage.TYPE_INT_ARGB || type == BufferedImage.TYPE_INT_BGR
+                || type == BufferedImage.TYPE_3BYTE_BGR || type == BufferedImage.TYPE_4BYTE_ABGR;
+    }
 
-        for (int y = 0; y < height; y++) {
-            int newX = 0;
-            for (int x = 0; x < width; x++) {
-                if (x != seam[y]) {
-                    output.setRGB(newX++, y, image.getRGB(x, y));
-                }
-            }
+    private static int[] readLine(BufferedImage image, int line, boolean vertical) {
+        return vertical
+                ? image.getRGB(line, 0, 1, image.getHeight(), null, 0, 1)
+                : image.getRGB(0, line, image.getWidth(), 1, null, 0, image.getWidth());
+    }
+
+    // 줄 lines개 분량의 ARGB 배열(index 순서)을 출력의 toLine부터 쓴다
+    private static void writeLines(BufferedImage target, int toLine, int lines, int[] rgb, boolean vertical) {
+        if (lines <= 0) {
+            return;
+        }
+        if (vertical) {
+            target.setRGB(toLine, 0, lines, target.getHeight(), rgb, 0, lines);
+        } else {
+            target.setRGB(0, toLine, target.getWidth(), lines, rgb, 0, target.getWidth());
         }
-        return output;
     }
 
-    public BufferedImage removeHorizontalSeam(BufferedImage image, int[] seam) {
-        int width = image.getWidth();
-        int height = image.getHeight();
-        BufferedImage output = new BufferedImage(width, height - 1, BufferedImage.TYPE_INT_ARGB);
+    // 줄 line의 p번째 픽셀이 사각형 배열에서 놓이는 위치 (열이면 행 우선으로 줄 lines개가 한 행)
+    private static int index(int line, int position, int lines, int positions, boolean vertical) {
+        return vertical ? position * lines + line : line * positions + position;
+    }
 
-        for (int x = 0; x < width; x++) {
-            int newY = 0;
-            for (int y = 0; y < height; y++) {
-                if (y != seam[x]) {
-                    output.setRGB(x, newY++, image.getRGB(x, y));
-                }
+    // energy[y][x] 맵 전체에서 세로 시임(행마다 x)을 찾는다. 호출마다 다른 맵일 수 있으므로
+    // 표는 다시 계산하지만 표 배열은 재사용한다
+    public int[] findVerticalSeam(double[][] energy) {
+        searchFinder.invalidate();
+        return searchFinder.findSeam(energy, energy[0].length, energy.length);
+    }
+
+    // energy[y][x] 맵 전체에서 가로 시임(열마다 y)을 찾는다
+    public int[] findHorizontalSeam(double[][] energy) {
+        int height = energy.length;
+        int width = energy[0].length;
+        // 높이 패스와 같이 전치한 맵에서 세로 시임을 찾는다. 전치 배열은 크기가 모자랄 때만 새로 만든다
+        if (transposedEnergy == null || transposedEnergy.length < width || transposedEnergy[0].length < height) {
+            transposedEnergy = new double[width][height];
+        }
+        for (int y = 0; y < height; y++) {
+            double[] row = energy[y];
+            for (int x = 0; x < width; x++) {
+                transposedEnergy[x][y] = row[x];
             }
         }
-        return output;
+        searchFinder.invalidate();
+        return searchFinder.findSeam(transposedEnergy, height, width);
     }
 
-    private List<int[]> mapSeamsToOriginal(List<int[]> seams) {
-        List<int[]> mappedSeams = new ArrayList<>();
-        for (int[] seam : seams) {
-            mappedSeams.add(seam.clone());
-        }
-        return mappedSeams;
-    }
-
-    private List<int[]> adjustSeamsForInsertion(List<int[]> seams, int size) {
-        int numSeams = seams.size();
-
-        // 시임들을 각 픽셀 위치에 따라 오름차순으로 정렬합니다.
-        // Vertical Seams: 오름차순으로 정렬하여 왼쪽에서 오른쪽으로 삽입
-        // Horizontal Seams: 오름차순으로 정렬하여 위에서 아래로 삽입
-        // 이를 위해 각 시임의 최소 인덱스를 기준으로 정렬
-        seams.sort((a, b) -> {
-            int minA = Arrays.stream(a).min().orElse(0);
-            int minB = Arrays.stream(b).min().orElse(0);
-            return Integer.compare(minA, minB);
-        });
-
-        // shifts 배열의 크기를 충분히 크게 설정
-        int[] shifts = new int[size + numSeams * 2];
-
-        List<int[]> adjustedSeams = new ArrayList<>();
-        for (int[] seam : seams) {
-            int[] adjustedSeam = new int[seam.length];
-            for (int i = 0; i < seam.length; i++) {
-                int originalIdx = seam[i];
-                if (originalIdx < 0 || originalIdx >= shifts.length) {
-                    throw new IllegalArgumentException("Seam index out of bounds: " + originalIdx);
-                }
-                int shift = shifts[originalIdx];
-                int adjustedIdx = originalIdx + shift;
+    // 차례로 제거된 시임들(각각 제거 시점의 좌표)을 제자리에서 원본 이미지의 x 좌표로 변환한다.
+    // 행마다 남아 있는 원본 열을 Fenwick 트리로 관리하므로 시임 하나당 O(log width)로 찾는다.
+    private void mapSeamsToOriginal(int[][] seams, int count, int width, int height, int[] tree) {
+        int topBit = Integer.highestOneBit(width);
+        for (int y = 0; y < height; y++) {
+            // 모든 열이 남아 있는 상태로 초기화 (트리 노드 i는 길이 i & -i 구간의 개수)
+            for (int i = 1; i <= width; i++) {
+                tree[i] = i & -i;
+            }
 
-                // 인덱스가 배열의 크기를 초과하지 않도록 제한
-                if (adjustedIdx >= shifts.length) {
-                    adjustedIdx = shifts.length - 1;
+            for (int i = 0; i < count; i++) {
+                // 남아 있는 열 중 (seam[y] + 1)번째 열을 찾는다
+                int remaining = seams[i][y] + 1;
+                int position = 0;
+                for (int step = topBit; step > 0; step >>= 1) {
+                    int next = position + step;
+                    if (next <= width && tree[next] < remaining) {
+                        position = next;
+                        remaining -= tree[next];
+                    }
                 }
+                seams[i][y] = position;
 
-                adjustedSeam[i] = adjustedIdx;
-
-                // shifts 배열 업데이트 (해당 위치 이후로 시임 삽입으로 인한 이동)
-                for (int j = originalIdx; j < shifts.length; j++) {
-                    shifts[j]++;
+                // 찾은 열을 제거된 것으로 표시
+                for (int j = position + 1; j <= width; j += j & -j) {
+                    tree[j]--;
                 }
-
-                // 로그 출력
-                System.out.println("Original Index: " + originalIdx + ", Shift: " + shift + ", Adjusted Index: " + adjustedIdx);
             }
-            adjustedSeams.add(adjustedSeam);
         }
-
-        return adjustedSeams;
     }
 
+    // 원본 좌표의 시임들을 모두 삽입했을 때 새 픽셀이 놓일 x 좌표로 제자리에서 바꾼다.
+    // 같은 행에서 더 왼쪽에 삽입되는 시임 수만큼 밀리므로 행마다 한 번의 누적 합으로 계산된다.
+    private void adjustSeamsForInsertion(int[][] seams, int count, int width, int height, int[] insertedBefore) {
+        for (int y = 0; y < height; y++) {
+            Arrays.fill(insertedBefore, 0, width + 1, 0);
+            for (int i = 0; i < count; i++) {
+                insertedBefore[seams[i][y] + 1]++;
+            }
+            for (int x = 1; x <= width; x++) {
+                insertedBefore[x] += insertedBefore[x - 1];
+            }
 
+            // 새 픽셀은 원본 픽셀 바로 오른쪽에 놓인다
+            for (int i = 0; i < count; i++) {
+                int originalIdx = seams[i][y];
+                seams[i][y] = originalIdx + insertedBefore[originalIdx] + 1;
+            }
+        }
+    }
 
+    // 삽입 위치가 정해진 시임들을 한 번의 패스로 모두 삽입한다.
+    // 각 새 픽셀은 바로 왼쪽 원본 픽셀과 그 오른쪽 원본 픽셀의 평균이다.
+    // marker: 새 너비 이상의 작업 배열로, 행 y에 삽입되는 위치에 y + 1을 기록한다 (행마다 지울 필요가 없다)
+    private void insertSeams(PixelBuffer buffer, int[][] adjustedSeams, int count, int[] marker) {
+        int width = buffer.getWidth();
+        int height = buffer.getHeight();
+        int newWidth = width + count;
+        int stride = buffer.getStride();
+        int[] pixels = buffer.getPixels();
+        Arrays.fill(marker, 0, newWidth, 0);
+
+        buffer.setWidth(newWidth);
+        for (int y = 0; y < height; y++) {
+            int stamp = y + 1;
+            for (int i = 0; i < count; i++) {
+                marker[adjustedSeams[i][y]] = stamp;
+            }
 
+            // 오른쪽부터 채우면 아직 읽지 않은 원본 픽셀을 덮어쓰지 않는다
+            int row = y * stride;
+            int x = width - 1;
+            for (int newX = newWidth - 1; newX >= 0; newX--) {
+                if (marker[newX] == stamp) {
+                    int rgb1 = pixels[row + x];
+                    int rgb2 = (x < width - 1) ? pixels[row + x + 1] : rgb1;
+                    pixels[row + newX] = averageColor(rgb1, rgb2);
+                } else {
+                    pixels[row + newX] = pixels[row + x];
+                    x--;
+                }
+            }
+        }
+    }
 
-
-    private int averageColor(int rgb1, int rgb2) {
+    static int averageColor(int rgb1, int rgb2) {
         // Extract ARGB components from the first color
         int a1 = (rgb1 >> 24) & 0xff;
         int r1 = (rgb1 >> 16) & 0xff;
@@ -0,0 +1,36 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event spanning the search and removal of a single seam.
+ * Disabled by default because it is emitted for every seam; enable it in the recording settings.
+ */
+@Name("seamcarving.Seam")
+@Label("Seam")
+@Category("Seam Carving")
+@Description("Search and removal of one seam")
+@Enabled(false)
+public class SeamEvent extends jdk.jfr.Event {
+    private static final EventType TYPE = EventType.getEventType(SeamEvent.class);
+
+    @Label("Width")
+    int width;
+
+    @Label("Height")
+    int height;
+
+    @Label("Pyramid")
+    boolean pyramid;
+
+    /**
+     * Returns whether a recording currently collects this event, so the per-seam loop only
+     * creates event objects while it does.
+     */
+    static boolean isTypeEnabled() {
+        return TYPE.isEnabled();
+    }
+}
@@ -0,0 +1,521 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Finds minimum-energy vertical seams while keeping the cumulative-cost table between iterations.
+ * After a seam is removed only the cells that can actually change are recomputed:
+ * the band around the seam on every row, plus the cone below any cell whose cost changed.
+ * When the dirty region of a row grows too large the rest of the table is recomputed in full.
+ * Horizontal seams are found by running this on a transposed buffer.
+ * Cumulative costs are kept in single precision; seams are minimal up to float rounding, which only
+ * matters for paths whose total energies differ by less than about one part in ten million.
+ */
+public class SeamFinder {
+    // Fraction of a row above which the remaining rows are recomputed in a single full pass
+    private static final double FULL_PASS_RATIO = 0.5;
+    // Maximum number of disjoint dirty intervals tracked per row before falling back to a full row
+    private static final int MAX_INTERVALS = 8;
+    // Rows shorter than this are always computed on the calling thread
+    private static final int PARALLEL_THRESHOLD = 4096;
+    // Cells of a row handed to a single fork/join task
+    private static final int PARALLEL_GRAIN = 1024;
+    // Rows computed between two cancellation checks in a full pass
+    static final int CANCEL_CHECK_ROWS = 64;
+
+    private ForkJoinPool forkJoinPool;
+    private ResizeStatistics statistics;
+
+    // Cumulative costs and predecessor offsets (-1, 0, +1) in flat row-major arrays of stride columns:
+    // 5 bytes per pixel instead of 12 for double[][] costs and int[][] offsets
+    private float[] cost;
+    private byte[] backtrack;
+    // Copy of the row above and the current energy row in float, for the row kernels
+    private float[] previousRow;
+    private float[] energyRow;
+    // Step costs of a forward energy (see EnergyFunction#getLeftStepCosts), or null
+    byte[][] leftSteps;
+    byte[][] rightSteps;
+    private int stride;
+    private int capacityHeight;
+    private boolean valid;
+    // Old costs of the dirty range being recomputed, to find the cells that changed
+    private float[] oldCost;
+
+    // Dirty cells recorded by the last seam update, per row
+    private int[] bandFrom;
+    private int[] bandTo;
+    private int[] edge; // Extra wrap-around column whose energy changed, or -1
+    private boolean pending;
+
+    private int[] intervalFrom = new int[MAX_INTERVALS];
+    private int[] intervalTo = new int[MAX_INTERVALS];
+    private int[] nextFrom = new int[MAX_INTERVALS];
+    private int[] nextTo = new int[MAX_INTERVALS];
+    private int changedFrom;
+    private int changedTo;
+    // Last-row cells sorted by cost (cost bits above, column below) and the chosen endpoints, for findSeams
+    private long[] endpointKeys = new long[0];
+    private int[] endpoints = new int[0];
+    private boolean[] claimed = new boolean[0];
+
+    /**
+     * Sets the pool used for full passes over wide images. Each row is split into chunks that run
+     * in parallel, with a barrier before the next row; the resulting seams are identical to the
+     * serial path.
+     *
+     * @param forkJoinPool The pool to use, or {@code null} to always compute on the calling thread.
+     */
+    public void setForkJoinPool(ForkJoinPool forkJoinPool) {
+        this.forkJoinPool = forkJoinPool;
+    }
+
+    // 단계별 시간을 기록할 통계 (null이면 기록하지 않음)
+    void setStatistics(ResizeStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    /**
+     * Adds the given costs of stepping diagonally into each cell, as reported by a forward energy, to the
+     * seam costs; {@code null} for a plain sum of energies. The maps are read on every search and must be
+     * kept up to date along with the energy map. Changing them discards the cached table.
+     */
+    void setStepCosts(byte[][] leftSteps, byte[][] rightSteps) {
+        if (leftSteps != this.leftSteps || rightSteps != this.rightSteps) {
+            this.leftSteps = leftSteps;
+            this.rightSteps = rightSteps;
+            invalidate();
+        }
+    }
+
+    /**
+     * Finds the minimum-energy vertical seam, reusing the cost table from the previous call where possible.
+     *
+     * @param energy The energy map indexed as {@code energy[y][x]}, possibly larger than the image.
+     * @param width  The logical width of the image.
+     * @param height The logical height of the image.
+     * @return The x-coordinate of the seam in each row.
+     */
+    public int[] findSeam(double[][] energy, int width, int height) {
+        return findSeam(energy, width, height, new int[height]);
+    }
+
+    /**
+     * Same as {@link #findSeam(double[][], int, int)}, but writes the seam into the given array
+     * instead of allocating a new one.
+     *
+     * @param seam An array of at least {@code height} entries that receives the seam.
+     */
+    public int[] findSeam(double[][] energy, int width, int height, int[] seam) {
+        long start = updateTable(energy, width, height);
+        backtrackSeam(width, height, seam);
+        recordPhase(ResizeStatistics.Phase.BACKTRACK, start);
+        return seam;
+    }
+
+    /**
+     * Finds up to {@code count} disjoint, non-crossing low-cost seams from a single cost table, for
+     * removing several seams per pass. The endpoints are the cheapest cells of the last row that are not
+     * next to each other. The cheapest one is traced back exactly like {@link #findSeam}, so the minimal
+     * seam is always among the results; the others are traced outwards from it, each kept strictly on its
+     * own side of the seam traced before it, taking the cheapest allowed predecessor where its own one is
+     * not. A seam squeezed against the border ends the search on that side, so fewer seams may be returned.
+     *
+     * <p>The seams are returned from left to right, so removing them from right to left leaves the
+     * coordinates of the remaining ones valid. The table is not updated for such removals; call
+     * {@link #invalidate()} afterwards.
+     *
+     * @param seams At least {@code count} arrays of at least {@code height} entries receiving the seams;
+     *              the arrays may be reordered.
+     * @return The number of seams found, at least one.
+     */
+    public int findSeams(double[][] energy, int width, int height, int[][] seams, int count) {
+        long start = updateTable(energy, width, height);
+        if (count <= 1 || width < 3) {
+            backtrackSeam(width, height, seams[0]);
+            recordPhase(ResizeStatistics.Phase.BACKTRACK, start);
+            return 1;
+        }
+
+        int found = chooseEndpoints(width, height, count);
+        int cheapest = Arrays.binarySearch(endpoints, 0, found, (int) endpointKeys[0]);
+        backtrackSeam(width, height, seams[cheapest]);
+
+        // 가장 싼 시임에서 바깥쪽으로: 오른쪽 시임은 왼쪽 이웃보다 오른쪽에, 왼쪽 시임은 오른쪽 이웃보다 왼쪽에 둔다
+        int last = cheapest;
+        while (last + 1 < found && traceSeam(seams[last + 1], endpoints[last + 1], seams[last], 1, width, height)) {
+            last++;
+        }
+        int first = cheapest;
+        while (first > 0 && traceSeam(seams[first - 1], endpoints[first - 1], seams[first], -1, width, height)) {
+            first--;
+        }
+
+        int traced = last - first + 1;
+        for (int j = 0; first > 0 && j < traced; j++) {
+            int[] seam = seams[j];
+            seams[j] = seams[first + j];
+            seams[first + j] = seam;
+        }
+        recordPhase(ResizeStatistics.Phase.BACKTRACK, start);
+        return traced;
+    }
+
+    // Traces a seam back from the last-row column x, staying strictly on the given side (+1 right, -1 left)
+    // of the neighbouring seam; returns false if it runs into the border
+    private boolean traceSeam(int[] seam, int x, int[] neighbour, int side, int width, int height) {
+        seam[height - 1] = x;
+        for (int y = height - 1; y > 0; y--) {
+            int lowest = (side > 0) ? neighbour[y - 1] + 1 : 0;
+            int highest = (side > 0) ? width - 1 : neighbour[y - 1] - 1;
+            int next = x + backtrack[cell(x, y)];
+            if (next < lowest || next > highest) {
+                next = cheapestPredecessor(y, x, lowest, highest);
+                if (next < 0) {
+                    return false;
+                }
+            }
+            seam[y - 1] = next;
+            x = next;
+        }
+        return true;
+    }
+
+    // Picks the cheapest last-row cells, skipping neighbours of chosen ones, and sorts them by column
+    private int chooseEndpoints(int width, int height, int count) {
+        if (endpointKeys.length < width) {
+            endpointKeys = new long[width];
+            claimed = new boolean[width];
+        }
+        if (endpoints.length < count) {
+            endpoints = new int[count];
+        }
+        // 비용은 0 이상이므로 float 비트를 그대로 정렬 키로 쓸 수 있다
+        for (int x = 0; x < width; x++) {
+            endpointKeys[x] = ((long) Float.floatToIntBits(cost[cell(x, height - 1)]) << 32) | x;
+            claimed[x] = false;
+        }
+        Arrays.sort(endpointKeys, 0, width);
+
+        int found = 0;
+        for (int i = 0; i < width && found < count; i++) {
+            int x = (int) endpointKeys[i];
+            if (claimed[x] || (x > 0 && claimed[x - 1]) || (x < width - 1 && claimed[x + 1])) {
+                continue;
+            }
+            claimed[x] = true;
+            endpoints[found++] = x;
+        }
+        Arrays.sort(endpoints, 0, found);
+        return found;
+    }
+
+    // The cheapest of the three cells above (x, y) within columns [lowest, highest], or -1 if there is none
+    private int cheapestPredecessor(int y, int x, int lowest, int highest) {
+        int best = -1;
+        float bestCost = Float.POSITIVE_INFINITY;
+        for (int candidate = Math.max(x - 1, lowest); candidate <= Math.min(x + 1, highest); candidate++) {
+            float candidateCost = cost[cell(candidate, y - 1)];
+            if (leftSteps != null && candidate != x) {
+                candidateCost += ((candidate < x) ? leftSteps[y][x] : rightSteps[y][x]) & 0xff;
+            }
+            if (best < 0 || candidateCost < bestCost) {
+                best = candidate;
+                bestCost = candidateCost;
+            }
+        }
+        return best;
+    }
+
+    // Brings the cost table up to date for the given energy map and returns the time it finished
+    private long updateTable(double[][] energy, int width, int height) {
+        // The tables are only reallocated when they are too small, so one finder can be reused across images
+        if (cost == null || stride != energy[0].length || capacityHeight < energy.length) {
+            int cells = Math.multiplyExact(energy[0].length, energy.length);
+            if (cost == null || cost.length < cells) {
+                cost = new float[cells];
+                backtrack = new byte[cells];
+            }
+            if (previousRow == null || previousRow.length < energy[0].length) {
+                previousRow = new float[energy[0].length];
+                energyRow = new float[energy[0].length];
+                oldCost = new float[energy[0].length];
+            }
+            stride = energy[0].length;
+            capacityHeight = energy.length;
+            valid = false;
+        }
+
+        long start = System.nanoTime();
+        if (!valid) {
+            computeRows(energy, 0, height, width);
+            valid = true;
+        } else if (pending) {
+            updateDirtyRegion(energy, width, height);
+        }
+        pending = false;
+        return recordPhase(ResizeStatistics.Phase.DP, start);
+    }
+
+    // 지난 시각부터의 경과 시간을 통계에 더하고 현재 시각을 돌려준다
+    long recordPhase(ResizeStatistics.Phase phase, long since) {
+        long now = System.nanoTime();
+        if (statistics != null) {
+            statistics.addPhase(phase, now - since);
+        }
+        return now;
+    }
+
+    /**
+     * Returns the size of the cached cost and backtrack tables in bytes.
+     */
+    long getTableBytes() {
+        return cost == null ? 0 : (long) cost.length * (Float.BYTES + Byte.BYTES);
+    }
+
+    // Index of the table cell of the pixel at (x, y)
+    private int cell(int x, int y) {
+        return y * stride + x;
+    }
+
+    /**
+     * Records that a seam has been removed so the next search only recomputes the affected cells.
+     * Must be called after the energy map has been updated for the removal.
+     *
+     * @param seam   The removed seam.
+     * @param width  The width of the image after the removal.
+     * @param height The height of the image.
+     */
+    public void seamRemoved(int[] seam, int width, int height) {
+        if (!valid) {
+            return;
+        }
+
+        // Compact the table along with the pixels
+        for (int y = 0; y < height; y++) {
+            int row = y * stride + seam[y];
+            System.arraycopy(cost, row + 1, cost, row, width - seam[y]);
+            System.arraycopy(backtrack, row + 1, backtrack, row, width - seam[y]);
+        }
+
+        // The same band the energy map recomputes; it also covers every cell whose predecessors moved
+        ensureBandCapacity(height);
+        for (int y = 0; y < height; y++) {
+            int s = seam[y];
+            int sUp = seam[(y == 0) ? height - 1 : y - 1];
+            int sDown = seam[(y == height - 1) ? 0 : y + 1];
+            bandFrom[y] = Math.max(Math.min(s, Math.min(sUp, sDown)) - 1, 0);
+            bandTo[y] = Math.min(Math.max(s, Math.max(sUp, sDown)), width - 1);
+            edge[y] = (s == 0) ? width - 1 : (s == width) ? 0 : -1;
+        }
+        pending = true;
+    }
+
+    /**
+     * Discards the cached table so the next search runs a full pass.
+     */
+    public void invalidate() {
+        valid = false;
+        pending = false;
+    }
+
+    private void ensureBandCapacity(int height) {
+        if (bandFrom == null || bandFrom.length < height) {
+            bandFrom = new int[height];
+            bandTo = new int[height];
+            edge = new int[height];
+        }
+    }
+
+    private void updateDirtyRegion(double[][] energy, int width, int height) {
+        int count = 0;
+        int fullPassLimit = (int) (width * FULL_PASS_RATIO);
+
+        for (int y = 0; y < height; y++) {
+            // Cells below a changed cell, plus the band recorded for this row
+            int nextCount = 0;
+            for (int i = 0; i < count; i++) {
+                nextCount = addInterval(nextFrom, nextTo, nextCount, intervalFrom[i] - 1, intervalTo[i] + 1, width);
+            }
+            nextCount = addInterval(nextFrom, nextTo, nextCount, bandFrom[y], bandTo[y], width);
+            if (edge[y] >= 0) {
+                nextCount = addInterval(nextFrom, nextTo, nextCount, edge[y], edge[y], width);
+            }
+
+            int dirty = 0;
+            for (int i = 0; i < nextCount; i++) {
+                dirty += nextTo[i] - nextFrom[i] + 1;
+            }
+            if (nextCount < 0 || dirty > fullPassLimit) {
+                computeRows(energy, y, height, width);
+                return;
+            }
+
+            // Recompute the dirty cells and keep only the ones whose cost actually changed
+            count = 0;
+            for (int i = 0; i < nextCount; i++) {
+                if (recomputeRow(energy, y, nextFrom[i], nextTo[i], width)) {
+                    intervalFrom[count] = changedFrom;
+                    intervalTo[count] = changedTo;
+                    count++;
+                }
+            }
+        }
+    }
+
+    // Inserts [from, to] into a sorted list of disjoint intervals; returns -1 when the list overflows
+    private int addInterval(int[] from, int[] to, int count, int newFrom, int newTo, int width) {
+        if (count < 0) {
+            return count;
+        }
+        newFrom = Math.max(newFrom, 0);
+        newTo = Math.min(newTo, width - 1);
+
+        int i = 0;
+        while (i < count && to[i] < newFrom - 1) {
+            i++;
+        }
+        int j = i;
+        while (j < count && from[j] <= newTo + 1) {
+            newFrom = Math.min(newFrom, from[j]);
+            newTo = Math.max(newTo, to[j]);
+            j++;
+        }
+
+        int newCount = count - (j - i) + 1;
+        if (newCount > MAX_INTERVALS) {
+            return -1;
+        }
+        System.arraycopy(from, j, from, i + 1, count - j);
+        System.arraycopy(to, j, to, i + 1, count - j);
+        from[i] = newFrom;
+        to[i] = newTo;
+        return newCount;
+    }
+
+    // Full pass over rows [fromRow, toRow), split across the pool when the rows are wide enough
+    private void computeRows(double[][] energy, int fromRow, int toRow, int width) {
+        ForkJoinPool pool = (width >= PARALLEL_THRESHOLD) ? forkJoinPool : null;
+        boolean kernels = RowKernels.isEnabled() && leftSteps == null;
+        for (int y = fromRow; y < toRow; y++) {
+            if ((y - fromRow) % CANCEL_CHECK_ROWS == 0) {
+                SeamCarver.checkCancelled();
+            }
+            boolean kernel = kernels && y > 0;
+            if (kernel) {
+                System.arraycopy(cost, (y - 1) * stride, previousRow, 0, width);
+            }
+            if (pool == null) {
+                // Called directly so the serial path does not allocate a task per row
+                if (kernel) {
+                    RowKernels.costRow(energy[y], energyRow, previousRow, cost, backtrack, y * stride,
+                            0, width - 1, width);
+                } else {
+                    computeRow(energy, y, 0, width - 1, width);
+                }
+                continue;
+            }
+            int row = y;
+            ParallelRange.forEach(pool, 0, width, PARALLEL_GRAIN, kernel
+                    ? (from, to) -> RowKernels.costRow(energy[row], energyRow, previousRow, cost, backtrack,
+                            row * stride, from, to - 1, width)
+                    : (from, to) -> computeRow(energy, row, from, to - 1, width));
+        }
+    }
+
+    // Recomputes cells [from, to] of a row without tracking changes; safe to run on disjoint ranges concurrently
+    private void computeRow(double[][] energy, int y, int from, int to, int width) {
+        double[] energyRow = energy[y];
+        int row = y * stride;
+        if (y == 0) {
+            for (int x = from; x <= to; x++) {
+                cost[x] = (float) energyRow[x];
+            }
+            return;
+        }
+
+        int previous = row - stride;
+        if (leftSteps != null) {
+            computeForwardRow(energyRow, leftSteps[y], rightSteps[y], row, from, to, width);
+            return;
+        }
+        for (int x = from; x <= to; x++) {
+            float minEnergy = cost[previous + x];
+            byte offset = 0;
+            if (x > 0 && cost[previous + x - 1] < minEnergy) {
+                minEnergy = cost[previous + x - 1];
+                offset = -1;
+            }
+            if (x < width - 1 && cost[previous + x + 1] < minEnergy) {
+                minEnergy = cost[previous + x + 1];
+                offset = 1;
+            }
+            cost[row + x] = (float) energyRow[x] + minEnergy;
+            backtrack[row + x] = offset;
+        }
+    }
+
+    // Same as computeRow with the step cost of each diagonal move added, in the same tie order
+    private void computeForwardRow(double[] energyRow, byte[] leftRow, byte[] rightRow, int row, int from, int to, int width) {
+        int previous = row - stride;
+        for (int x = from; x <= to; x++) {
+            float minEnergy = cost[previous + x];
+            byte offset = 0;
+            if (x > 0 && cost[previous + x - 1] + (leftRow[x] & 0xff) < minEnergy) {
+                minEnergy = cost[previous + x - 1] + (leftRow[x] & 0xff);
+                offset = -1;
+            }
+            if (x < width - 1 && cost[previous + x + 1] + (rightRow[x] & 0xff) < minEnergy) {
+                minEnergy = cost[previous + x + 1] + (rightRow[x] & 0xff);
+                offset = 1;
+            }
+            cost[row + x] = (float) energyRow[x] + minEnergy;
+            backtrack[row + x] = offset;
+        }
+    }
+
+    // Recomputes cells [from, to] of a row; returns whether any cost changed and records the changed range
+    private boolean recomputeRow(double[][] energy, int y, int from, int to, int width) {
+        changedFrom = -1;
+        changedTo = -1;
+        // The old costs are kept in oldCost so the whole range is recomputed in one call, with the kernel
+        // where the full passes use it
+        int row = y * stride;
+        System.arraycopy(cost, row + from, oldCost, from, to - from + 1);
+        if (y > 0 && RowKernels.isEnabled() && leftSteps == null) {
+            int above = Math.max(from - 1, 0);
+            System.arraycopy(cost, row - stride + above, previousRow, above, Math.min(to + 1, width - 1) - above + 1);
+            RowKernels.costRow(energy[y], energyRow, previousRow, cost, backtrack, row, from, to, width);
+        } else {
+            computeRow(energy, y, from, to, width);
+        }
+        for (int x = from; x <= to; x++) {
+            if (cost[row + x] != oldCost[x]) {
+                if (changedFrom < 0) {
+                    changedFrom = x;
+                }
+                changedTo = x;
+            }
+        }
+
+        return changedFrom >= 0;
+    }
+
+    private void backtrackSeam(int width, int height, int[] seam) {
+        // 최소 에너지 시임 찾기
+        float minTotalEnergy = Float.POSITIVE_INFINITY;
+        int minIndex = -1;
+        for (int x = 0; x < width; x++) {
+            float total = cost[cell(x, height - 1)];
+            if (total < minTotalEnergy) {
+                minTotalEnergy = total;
+                minIndex = x;
+            }
+        }
+
+        // 시임 경로 백트랙
+        seam[height - 1] = minIndex;
+        for (int y = height - 1; y > 0; y--) {
+            seam[y - 1] = seam[y] + backtrack[cell(seam[y], y)];
+        }
+    }
+}
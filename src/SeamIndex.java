@@ -0,0 +1,233 @@
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * Per-pixel seam removal order of an image, recorded by carving it once down to a minimum width.
+ * Any width between the minimum width and the matching enlargement can then be produced with a
+ * single filter pass over the original pixels, without finding any seams:
+ * narrowing to {@code width - n} keeps the pixels removed at step {@code n} or later, and widening
+ * by {@code k} inserts a new pixel after every pixel removed before step {@code k}.
+ * The results are identical to carving the original with {@link SeamCarver#resizeWidthStandard}.
+ * The same order drives both directions, so it also serves as the insertion order for enlargements.
+ * The order can also be read from a memory-mapped {@link SeamMapFile}, in which case it is decoded
+ * one row at a time and never held on the heap.
+ */
+public class SeamIndex {
+    // Order of pixels that are never removed down to the minimum width
+    public static final int KEPT = Integer.MAX_VALUE;
+
+    private final int[] pixels;
+    private final int[] order;
+    // Order stored in a seam map file (big-endian, orderBytes per pixel) instead of order, or null
+    private final ByteBuffer mappedOrder;
+    private final int orderBytes;
+    private final int width;
+    private final int height;
+    private final int minWidth;
+
+    /**
+     * @param pixels   The original packed ARGB pixels, row by row without padding.
+     * @param order    The removal step of each pixel, or {@link #KEPT}; same layout as {@code pixels}.
+     * @param width    The original width.
+     * @param height   The original height.
+     * @param minWidth The width the image was carved down to.
+     */
+    public SeamIndex(int[] pixels, int[] order, int width, int height, int minWidth) {
+        this(pixels, order, null, Integer.BYTES, width, height, minWidth);
+    }
+
+    /**
+     * Creates an index whose order is read from a mapped seam map; see {@link SeamMapFile}.
+     *
+     * @param mappedOrder The big-endian removal steps, row by row, with {@link SeamMapFile#KEPT_SHORT}
+     *                    or {@link #KEPT} marking kept pixels.
+     * @param orderBytes  2 or 4 bytes per entry.
+     */
+    SeamIndex(int[] pixels, ByteBuffer mappedOrder, int orderBytes, int width, int height, int minWidth) {
+        this(pixels, null, mappedOrder, orderBytes, width, height, minWidth);
+    }
+
+    private SeamIndex(int[] pixels, int[] order, ByteBuffer mappedOrder, int orderBytes, int width, int height, int minWidth) {
+        this.pixels = pixels;
+        this.order = order;
+        this.mappedOrder = mappedOrder;
+        this.orderBytes = orderBytes;
+        this.width = width;
+        this.height = height;
+        this.minWidth = minWidth;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getMinWidth() {
+        return minWidth;
+    }
+
+    /**
+     * Returns the widest image this index can produce, i.e. the original width plus every recorded seam.
+     */
+    public int getMaxWidth() {
+        return 2 * width - minWidth;
+    }
+
+    public int[] getPixels() {
+        return pixels;
+    }
+
+    /**
+     * Returns the removal step of each pixel; an index read from a seam map decodes a new copy on every call.
+     */
+    public int[] getOrder() {
+        if (order != null) {
+            return order;
+        }
+        int[] decoded = new int[width * height];
+        int[] row = new int[width];
+        OrderReader reader = new OrderReader();
+        for (int y = 0; y < height; y++) {
+            System.arraycopy(reader.read(y, row), 0, decoded, y * width, width);
+        }
+        return decoded;
+    }
+
+    /**
+     * Returns whether the order is read from a mapped seam map rather than held on the heap.
+     */
+    public boolean isMapped() {
+        return mappedOrder != null;
+    }
+
+    /**
+     * Returns the heap memory held by the pixels and, unless it is mapped, the order.
+     */
+    public long getSizeInBytes() {
+        return ((long) pixels.length + (order != null ? order.length : 0)) * Integer.BYTES;
+    }
+
+    public boolean supportsWidth(int targetWidth) {
+        return targetWidth >= minWidth && targetWidth <= getMaxWidth();
+    }
+
+    /**
+     * Produces the image retargeted to the given width.
+     */
+    public BufferedImage retarget(int targetWidth) {
+        return retargetBuffer(targetWidth, height).toImage();
+    }
+
+    /**
+     * Produces the retargeted pixels as a working buffer, so further carving can continue in place.
+     *
+     * @param targetWidth    A width accepted by {@link #supportsWidth(int)}.
+     * @param capacityHeight The largest height the returned buffer has to hold.
+     */
+    public PixelBuffer retargetBuffer(int targetWidth, int capacityHeight) {
+        if (!supportsWidth(targetWidth)) {
+            throw new IllegalArgumentException("Width " + targetWidth + " is outside [" + minWidth + ", " + getMaxWidth() + "]");
+        }
+
+        capacityHeight = Math.max(capacityHeight, height);
+        int[] output = new int[targetWidth * capacityHeight];
+        OrderReader reader = new OrderReader();
+        int[] rowOrder = new int[width];
+
+        if (targetWidth <= width) {
+            int removed = width - targetWidth;
+            for (int y = 0; y < height; y++) {
+                int row = y * width;
+                int newX = y * targetWidth;
+                int[] steps = reader.read(y, rowOrder);
+                int offset = (steps == order) ? row : 0;
+                for (int x = 0; x < width; x++) {
+                    if (steps[offset + x] >= removed) {
+                        output[newX++] = pixels[row + x];
+                    }
+                }
+            }
+        } else {
+            int inserted = targetWidth - width;
+            for (int y = 0; y < height; y++) {
+                int row = y * width;
+                int newX = y * targetWidth;
+                int[] steps = reader.read(y, rowOrder);
+                int offset = (steps == order) ? row : 0;
+                for (int x = 0; x < width; x++) {
+                    int rgb = pixels[row + x];
+                    output[newX++] = rgb;
+                    if (steps[offset + x] < inserted) {
+                        int right = (x < width - 1) ? pixels[row + x + 1] : rgb;
+                        output[newX++] = SeamCarver.averageColor(rgb, right);
+                    }
+                }
+            }
+        }
+
+        return new PixelBuffer(output, targetWidth, capacityHeight, targetWidth, height);
+    }
+
+    /**
+     * Returns the first row whose order is not a valid removal order, or -1 when every row is valid: a row
+     * must hold each step below {@code width - minWidth} exactly once and {@link #KEPT} everywhere else.
+     * Used to reject corrupt seam maps before any pixels are filtered with them.
+     */
+    int findInvalidRow() {
+        int removed = width - minWidth;
+        // 단계마다 마지막으로 본 행(+1)을 적어 두어 행마다 지우지 않고도 중복을 찾는다
+        int[] seenInRow = new int[removed];
+        OrderReader reader = new OrderReader();
+        int[] rowOrder = new int[width];
+        for (int y = 0; y < height; y++) {
+            int[] steps = reader.read(y, rowOrder);
+            int offset = (steps == order) ? y * width : 0;
+            int count = 0;
+            for (int x = 0; x < width; x++) {
+                int step = steps[offset + x];
+                if (step == KEPT) {
+                    continue;
+                }
+                if (step < 0 || step >= removed || seenInRow[step] == y + 1) {
+                    return y;
+                }
+                seenInRow[step] = y + 1;
+                count++;
+            }
+            if (count != removed) {
+                return y;
+            }
+        }
+        return -1;
+    }
+
+    // 행 단위로 제거 순서를 읽는다. 힙에 있는 순서는 배열 자체를(행 오프셋은 호출자가 더함),
+    // 매핑된 순서는 행 하나를 풀어 담은 배열을 돌려준다. 호출마다 버퍼를 복제하므로 스레드 간 공유해도 된다.
+    private final class OrderReader {
+        private final ByteBuffer bytes = (mappedOrder != null) ? mappedOrder.duplicate() : null;
+        private final ShortBuffer shorts = (bytes != null && orderBytes == Short.BYTES) ? bytes.asShortBuffer() : null;
+        private final IntBuffer ints = (bytes != null && orderBytes == Integer.BYTES) ? bytes.asIntBuffer() : null;
+        private final short[] shortRow = (shorts != null) ? new short[width] : null;
+
+        int[] read(int y, int[] row) {
+            if (order != null) {
+                return order;
+            }
+            if (shorts != null) {
+                shorts.get(y * width, shortRow, 0, width);
+                for (int x = 0; x < width; x++) {
+                    int step = shortRow[x] & 0xffff;
+                    row[x] = (step == SeamMapFile.KEPT_SHORT) ? KEPT : step;
+                }
+            } else {
+                ints.get(y * width, row, 0, width);
+            }
+            return row;
+        }
+    }
+}
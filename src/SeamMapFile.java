@@ -0,0 +1,178 @@
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Sidecar file that stores the seam removal order of an image ({@link SeamIndex}), so the analysis can
+ * be done once offline and any process can retarget the image afterwards without finding seams.
+ * The file records the content hash of the image and the energy function it was computed with, and is
+ * only used when both still match. The order is memory-mapped on reading and decoded row by row, so
+ * opening a seam map costs no more heap than the image's pixels; every row is checked once on reading to
+ * be a valid removal order, so a corrupt body is rejected like a corrupt header.
+ *
+ * <p>Layout, all integers big-endian:
+ * <pre>
+ * 0   int     magic "SMAP"
+ * 4   int     format version (1)
+ * 8   int     width, height, minimum width
+ * 20  int     energy function version
+ * 24  int     bytes per order entry: 2 when every step fits below {@link #KEPT_SHORT}, otherwise 4
+ * 28  byte[32] SHA-256 content hash of the image ({@link ResizeCache#contentHash})
+ * 60  short   length of the energy function name, followed by the name in UTF-8
+ * ... zero padding to a multiple of 8 bytes
+ * ... width x height removal steps, row by row; {@link #KEPT_SHORT} or {@link SeamIndex#KEPT} for kept pixels
+ * </pre>
+ */
+public class SeamMapFile {
+    public static final String EXTENSION = ".seams";
+    // Kept pixels in the 2-byte encoding
+    public static final int KEPT_SHORT = 0xffff;
+
+    private static final int MAGIC = 0x534d4150;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HASH_BYTES = 32;
+    private static final int FIXED_HEADER_BYTES = 62;
+
+    private SeamMapFile() {
+    }
+
+    /**
+     * Returns the conventional sidecar location of an image file: the same path with {@value #EXTENSION} appended.
+     */
+    public static File sidecarFor(File image) {
+        return new File(image.getPath() + EXTENSION);
+    }
+
+    /**
+     * Writes the index to the given file. The file is written under a temporary name and then moved
+     * into place, so concurrent readers never see a partial seam map.
+     */
+    public static void write(File file, SeamIndex index, String contentHash, String energyName, int energyVersion) throws IOException {
+        int width = index.getWidth();
+        int height = index.getHeight();
+        // 가장 큰 제거 순서가 16비트에 들어가면 항목당 2바이트로 저장한다
+        int orderBytes = (index.getWidth() - index.getMinWidth() < KEPT_SHORT) ? Short.BYTES : Integer.BYTES;
+        byte[] name = energyName.getBytes(StandardCharsets.UTF_8);
+        int headerBytes = headerBytes(name.length);
+
+        Path target = file.toPath().toAbsolutePath();
+        // createTempFile would make the file private to this user; seam maps are meant to be shared
+        Path temporary = target.resolveSibling(file.getName() + "." + Long.toHexString(System.nanoTime()) + ".tmp");
+        try {
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(temporary, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)))) {
+                output.writeInt(MAGIC);
+                output.writeInt(FORMAT_VERSION);
+                output.writeInt(width);
+                output.writeInt(height);
+                output.writeInt(index.getMinWidth());
+                output.writeInt(energyVersion);
+                output.writeInt(orderBytes);
+                output.write(parseHash(contentHash));
+                output.writeShort(name.length);
+                output.write(name);
+                output.write(new byte[headerBytes - FIXED_HEADER_BYTES - name.length]);
+
+                int[] order = index.getOrder();
+                for (int step : order) {
+                    if (orderBytes == Short.BYTES) {
+                        output.writeShort(step == SeamIndex.KEPT ? KEPT_SHORT : step);
+                    } else {
+                        output.writeInt(step);
+                    }
+                }
+            }
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Maps a seam map and returns it as an index over the given image's pixels.
+     *
+     * @return The index, or {@code null} when the file does not exist or was written for other content,
+     *         another size or another energy function (e.g. the image was edited since).
+     * @throws IOException When the file cannot be read or is not a valid seam map.
+     */
+    public static SeamIndex read(File file, BufferedImage image, String contentHash, String energyName,
+                                 int energyVersion) throws IOException {
+        if (!file.isFile()) {
+            return null;
+        }
+
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            // 매핑은 채널을 닫아도 유지된다
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.capacity() < FIXED_HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException(file + ": not a seam map");
+        }
+        if (buffer.getInt(4) != FORMAT_VERSION) {
+            throw new IOException(file + ": unsupported seam map version " + buffer.getInt(4));
+        }
+
+        int width = buffer.getInt(8);
+        int height = buffer.getInt(12);
+        int minWidth = buffer.getInt(16);
+        int orderBytes = buffer.getInt(24);
+        byte[] hash = new byte[HASH_BYTES];
+        buffer.get(28, hash);
+        byte[] name = new byte[buffer.getShort(60) & 0xffff];
+        if (FIXED_HEADER_BYTES + name.length > buffer.capacity()) {
+            throw new IOException(file + ": truncated seam map");
+        }
+        buffer.get(FIXED_HEADER_BYTES, name);
+
+        int headerBytes = headerBytes(name.length);
+        long orderLength = (long) width * height * orderBytes;
+        if ((orderBytes != Short.BYTES && orderBytes != Integer.BYTES) || minWidth < 1 || minWidth > width
+                || height < 1 || orderLength > Integer.MAX_VALUE || buffer.capacity() != headerBytes + orderLength) {
+            throw new IOException(file + ": corrupt seam map");
+        }
+
+        // 이미지가 바뀌었거나 에너지 함수가 달라졌으면 쓰지 않는다
+        if (width != image.getWidth() || height != image.getHeight()
+                || buffer.getInt(20) != energyVersion
+                || !new String(name, StandardCharsets.UTF_8).equals(energyName)
+                || !ResizeCache.toHex(hash).equals(contentHash)) {
+            return null;
+        }
+
+        int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+        ByteBuffer order = buffer.slice(headerBytes, (int) orderLength);
+        SeamIndex index = new SeamIndex(pixels, order, orderBytes, width, height, minWidth);
+        // 본문이 깨졌으면 픽셀을 거르다가 범위를 벗어나거나 어긋난 행을 만들므로 미리 한 번 훑어 본다
+        int invalidRow = index.findInvalidRow();
+        if (invalidRow >= 0) {
+            throw new IOException(file + ": corrupt seam map, row " + invalidRow);
+        }
+        return index;
+    }
+
+    private static int headerBytes(int nameLength) {
+        return (FIXED_HEADER_BYTES + nameLength + 7) & ~7;
+    }
+
+    private static byte[] parseHash(String hex) {
+        if (hex.length() != 2 * HASH_BYTES) {
+            throw new IllegalArgumentException("Not a SHA-256 hash: " + hex);
+        }
+        byte[] hash = new byte[HASH_BYTES];
+        for (int i = 0; i < HASH_BYTES; i++) {
+            hash[i] = (byte) Integer.parseInt(hex.substring(2 * i, 2 * i + 2), 16);
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,124 @@
+import java.util.Arrays;
+
+/**
+ * Seam search for consecutive frames of a sequence, warm-started from the previous frame.
+ * The i-th seam of a frame is searched with a DP restricted to a band of {@code bandWidth} pixels on
+ * each side of the i-th seam of the previous frame, in the coordinates of the image it was removed
+ * from. Most seams then cost a narrow band instead of a full table pass, and a seam moves by at most
+ * the band width from one frame to the next, so the carved regions do not jump around.
+ * Keyframes, seams without a guide and seams that end up against the edge of their band, where the
+ * content has moved too far for the band, fall back to the full search of {@link SeamFinder}.
+ */
+public class TemporalSeamFinder extends BandSeamFinder {
+    // Seams of the previous frame, and the ones found so far in the current frame
+    private int[][] guides = new int[0][];
+    private int guideCount;
+    private int[][] seams = new int[0][];
+    private int seamCount;
+
+    private long guidedSeams;
+    private long searchedSeams;
+
+    /**
+     * @param bandWidth The number of pixels searched on each side of the previous frame's seam (at least 1).
+     */
+    public TemporalSeamFinder(int bandWidth) {
+        super(bandWidth);
+        if (bandWidth < 1) {
+            throw new IllegalArgumentException("Invalid temporal band: " + bandWidth);
+        }
+    }
+
+    /**
+     * Starts the seams of a new frame. Unless it is a keyframe, the seams found since the previous call
+     * guide the searches of this frame in order.
+     */
+    public void beginFrame(boolean keyframe) {
+        int[][] previous = guides;
+        guides = seams;
+        seams = previous;
+        guideCount = keyframe ? 0 : seamCount;
+        seamCount = 0;
+        invalidate();
+    }
+
+    /**
+     * Returns the number of seams found within the band of their guide.
+     */
+    public long getGuidedSeams() {
+        return guidedSeams;
+    }
+
+    /**
+     * Returns the number of seams found with a full search.
+     */
+    public long getSearchedSeams() {
+        return searchedSeams;
+    }
+
+    @Override
+    public int[] findSeam(double[][] energy, int width, int height, int[] seam) {
+        if (seamCount < guideCount && guides[seamCount].length >= height && width > 2 * bandWidth + 1) {
+            long start = System.nanoTime();
+            ensureBand(height);
+            int[] guide = guides[seamCount];
+            for (int y = 0; y < height; y++) {
+                center[y] = Math.min(guide[y], width - 1);
+            }
+            refine(energy, width, height, seam, start);
+            if (!againstBand(seam, width, height)) {
+                // The cached table no longer matches the image once this seam is removed
+                invalidate();
+                guidedSeams++;
+                return record(seam, height);
+            }
+        }
+        searchedSeams++;
+        return record(super.findSeam(energy, width, height, seam), height);
+    }
+
+    /**
+     * Searches one seam at a time, so that every seam has its own guide in the next frame.
+     *
+     * @return Always 1.
+     */
+    @Override
+    public int findSeams(double[][] energy, int width, int height, int[][] seams, int count) {
+        findSeam(energy, width, height, seams[0]);
+        return 1;
+    }
+
+    @Override
+    long getTableBytes() {
+        long bytes = super.getTableBytes();
+        for (int[][] frame : new int[][][]{guides, seams}) {
+            for (int[] seam : frame) {
+                bytes += (seam == null) ? 0 : (long) seam.length * Integer.BYTES;
+            }
+        }
+        return bytes;
+    }
+
+    // Whether the seam touches the edge of its band anywhere except at the image border
+    private boolean againstBand(int[] seam, int width, int height) {
+        for (int y = 0; y < height; y++) {
+            int x = seam[y];
+            if ((x == bandFrom[y] && x > 0) || (x == bandFrom[y] + 2 * bandWidth && x < width - 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Keeps a copy of the seam to guide the same search in the next frame
+    private int[] record(int[] seam, int height) {
+        if (seamCount == seams.length) {
+            seams = Arrays.copyOf(seams, Math.max(16, 2 * seams.length));
+        }
+        if (seams[seamCount] == null || seams[seamCount].length < height) {
+            seams[seamCount] = new int[height];
+        }
+        System.arraycopy(seam, 0, seams[seamCount++], 0, height);
+        return seam;
+    }
+}
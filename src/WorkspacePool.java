@@ -0,0 +1,65 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps idle {@link CarvingWorkspace}s so that jobs of similar size can reuse their memory.
+ * A request is served by the smallest idle workspace that fits it, as long as that workspace is not
+ * more than {@link #SIZE_SLACK} times larger than needed; otherwise a new one is created.
+ * Safe to share between worker threads.
+ */
+public class WorkspacePool {
+    // Largest ratio between a reused workspace and the requested size
+    private static final int SIZE_SLACK = 2;
+
+    private final int maxIdle;
+    private final List<CarvingWorkspace> idle = new ArrayList<>();
+
+    /**
+     * @param maxIdle The number of idle workspaces kept; released workspaces beyond that are dropped.
+     */
+    public WorkspacePool(int maxIdle) {
+        this.maxIdle = maxIdle;
+    }
+
+    /**
+     * Returns a workspace for buffers of the given capacity. Give it back with {@link #release}.
+     */
+    public synchronized CarvingWorkspace acquire(int capacityWidth, int capacityHeight) {
+        long needed = (long) capacityWidth * capacityHeight;
+        CarvingWorkspace best = null;
+        for (CarvingWorkspace workspace : idle) {
+            if (workspace.fits(capacityWidth, capacityHeight) && workspace.getCells() <= needed * SIZE_SLACK
+                    && (best == null || workspace.getCells() < best.getCells())) {
+                best = workspace;
+            }
+        }
+        if (best != null) {
+            idle.remove(best);
+            return best;
+        }
+        return new CarvingWorkspace(capacityWidth, capacityHeight);
+    }
+
+    public synchronized void release(CarvingWorkspace workspace) {
+        if (idle.size() < maxIdle) {
+            idle.add(workspace);
+            return;
+        }
+
+        // Keep the larger workspaces, which are the expensive ones to rebuild
+        CarvingWorkspace smallest = workspace;
+        for (CarvingWorkspace candidate : idle) {
+            if (candidate.getCells() < smallest.getCells()) {
+                smallest = candidate;
+            }
+        }
+        if (smallest != workspace) {
+            idle.remove(smallest);
+            idle.add(workspace);
+        }
+    }
+
+    public synchronized int getIdleCount() {
+        return idle.size();
+    }
+}